@@ -0,0 +1,75 @@
+package com.armando.shop_api.analytics;
+
+import com.armando.shop_api.entity.OrderItem;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Cambio en las ventas de una hora: órdenes, unidades e importe, total y por producto.
+// Crear suma, eliminar resta, actualizar resta las líneas viejas y suma las nuevas (siempre en la hora de creación).
+public final class SalesDelta {
+
+    private final Instant hour;
+    private long orders;
+    private long units;
+    private long cents;
+    // por producto: {unidades, céntimos}; TreeMap = filas bloqueadas siempre en orden de id
+    private final Map<Long, long[]> products = new TreeMap<>();
+
+    private SalesDelta(Instant hour) {
+        this.hour = hour;
+    }
+
+    public static SalesDelta at(Instant createdAt) {
+        return new SalesDelta(createdAt.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    public SalesDelta orders(long n) {
+        orders += n;
+        return this;
+    }
+
+    public SalesDelta line(Long productId, long quantity, long subtotalCents) {
+        units += quantity;
+        cents += subtotalCents;
+        long[] p = products.computeIfAbsent(productId, id -> new long[2]);
+        p[0] += quantity;
+        p[1] += subtotalCents;
+        return this;
+    }
+
+    // sign = 1 suma las líneas, -1 las resta
+    public SalesDelta items(Iterable<OrderItem> items, int sign) {
+        for (OrderItem item : items) {
+            line(item.getProduct().getId(), (long) sign * item.getQuantity(), sign * item.getSubtotal().cents());
+        }
+        return this;
+    }
+
+    public Instant hour() {
+        return hour;
+    }
+
+    public long orders() {
+        return orders;
+    }
+
+    public long units() {
+        return units;
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Map<Long, long[]> products() {
+        return products;
+    }
+
+    public boolean isEmpty() {
+        return orders == 0 && units == 0 && cents == 0
+                && products.values().stream().allMatch(p -> p[0] == 0 && p[1] == 0);
+    }
+}
@@ -0,0 +1,246 @@
+package com.armando.shop_api.analytics;
+
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.repository.SalesRollupFenceRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+// Lecturas y escrituras de las tablas de ventas por hora (sales_hourly, product_sales_hourly).
+// Las escrituras son UPSERT con suma (+delta) y corren en la transacción de la orden.
+// La reconstrucción se coordina con las escrituras mediante una valla (sales_rollup_fence):
+// cada orden la lee con bloqueo compartido después de escribir su fila en orders y no suma su delta
+// si la reconstrucción todavía tiene que leerla; los tramos ya reconstruidos reciben los deltas con normalidad.
+@Component
+public class SalesRollupStore {
+
+    // filas por hora (y por producto y hora): reparte el bloqueo entre órdenes concurrentes
+    static final int SLOTS = 8;
+
+    static final int FENCE_ID = 1;
+
+    private static final String UPSERT_HOUR = """
+            INSERT INTO sales_hourly (hour_start, slot, order_count, units, revenue)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count),
+                                    units = units + VALUES(units),
+                                    revenue = revenue + VALUES(revenue)
+            """;
+
+    private static final String UPSERT_PRODUCT = """
+            INSERT INTO product_sales_hourly (hour_start, product_id, slot, units, revenue)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE units = units + VALUES(units),
+                                    revenue = revenue + VALUES(revenue)
+            """;
+
+    // Hibernate guarda los Instant en UTC: las filas escritas por JDBC deben coincidir
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+    public record HourRow(Instant hourStart, long orders, long units, Money revenue) {}
+
+    public record ProductRow(Long productId, String name, long units, Money revenue) {}
+
+    // Órdenes con id en (rebuiltUpTo, rebuildUpTo] las cuenta la reconstrucción en curso
+    public record RebuildFence(long rebuildUpTo, long rebuiltUpTo) {
+        public static final RebuildFence NONE = new RebuildFence(0, 0);
+
+        public boolean pending(long orderId) {
+            return orderId > rebuiltUpTo && orderId <= rebuildUpTo;
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final SalesRollupFenceRepository fenceRepository;
+
+    public SalesRollupStore(JdbcTemplate jdbc, SalesRollupFenceRepository fenceRepository) {
+        this.jdbc = jdbc;
+        this.fenceRepository = fenceRepository;
+    }
+
+    // Delta de una orden ya escrita (y bloqueada) en esta transacción
+    public void apply(long orderId, SalesDelta delta) {
+        if (delta.isEmpty() || fence().pending(orderId)) return;
+        apply(delta);
+    }
+
+    // Sin consultar la valla: para quien ya filtró sus órdenes con fence() (alta masiva)
+    public void apply(SalesDelta delta) {
+        apply(delta, ThreadLocalRandom.current().nextInt(SLOTS));
+    }
+
+    // Leer después de escribir las órdenes: el bloqueo compartido se mantiene hasta el commit
+    public RebuildFence fence() {
+        return fenceRepository.findForShare(FENCE_ID)
+                .map(f -> new RebuildFence(f.getRebuildUpTo(), f.getRebuiltUpTo()))
+                .orElse(RebuildFence.NONE);
+    }
+
+    void apply(SalesDelta delta, int slot) {
+        if (delta.isEmpty()) return;
+
+        Timestamp hour = Timestamp.from(delta.hour());
+        jdbc.update(con -> {
+            var ps = con.prepareStatement(UPSERT_HOUR);
+            ps.setTimestamp(1, hour, UTC);
+            ps.setInt(2, slot);
+            ps.setLong(3, delta.orders());
+            ps.setLong(4, delta.units());
+            ps.setBigDecimal(5, Money.ofCents(delta.cents()).toBigDecimal());
+            return ps;
+        });
+
+        List<Object[]> rows = new ArrayList<>();
+        delta.products().forEach((productId, p) -> {
+            if (p[0] != 0 || p[1] != 0) {
+                rows.add(new Object[]{productId, p[0], Money.ofCents(p[1]).toBigDecimal()});
+            }
+        });
+        if (rows.isEmpty()) return;
+
+        jdbc.batchUpdate(UPSERT_PRODUCT, rows, rows.size(), (ps, row) -> {
+            ps.setTimestamp(1, hour, UTC);
+            ps.setLong(2, (Long) row[0]);
+            ps.setInt(3, slot);
+            ps.setLong(4, (Long) row[1]);
+            ps.setBigDecimal(5, (BigDecimal) row[2]);
+        });
+    }
+
+    // Horas con ventas en [from, to), ya sumados los slots
+    public List<HourRow> hours(Instant from, Instant to) {
+        return jdbc.query(con -> {
+            var ps = con.prepareStatement("""
+                    SELECT hour_start, SUM(order_count), SUM(units), SUM(revenue)
+                      FROM sales_hourly
+                     WHERE hour_start >= ? AND hour_start < ?
+                     GROUP BY hour_start
+                     ORDER BY hour_start
+                    """);
+            ps.setTimestamp(1, Timestamp.from(from), UTC);
+            ps.setTimestamp(2, Timestamp.from(to), UTC);
+            return ps;
+        }, (rs, i) -> new HourRow(rs.getTimestamp(1, UTC).toInstant(), rs.getLong(2), rs.getLong(3), money(rs, 4)));
+    }
+
+    // Totales de [from, to)
+    public HourRow totals(Instant from, Instant to) {
+        return jdbc.query(con -> {
+            var ps = con.prepareStatement("""
+                    SELECT COALESCE(SUM(order_count), 0), COALESCE(SUM(units), 0), COALESCE(SUM(revenue), 0)
+                      FROM sales_hourly
+                     WHERE hour_start >= ? AND hour_start < ?
+                    """);
+            ps.setTimestamp(1, Timestamp.from(from), UTC);
+            ps.setTimestamp(2, Timestamp.from(to), UTC);
+            return ps;
+        }, (rs, i) -> new HourRow(from, rs.getLong(1), rs.getLong(2), money(rs, 3))).get(0);
+    }
+
+    // Ranking de productos en [from, to) por unidades o por importe
+    public List<ProductRow> topProducts(Instant from, Instant to, boolean byRevenue, int limit) {
+        String order = byRevenue ? "r.revenue DESC, r.units DESC" : "r.units DESC, r.revenue DESC";
+        return jdbc.query(con -> {
+            var ps = con.prepareStatement("""
+                    SELECT r.product_id, p.name, r.units, r.revenue
+                      FROM (SELECT product_id, SUM(units) AS units, SUM(revenue) AS revenue
+                              FROM product_sales_hourly
+                             WHERE hour_start >= ? AND hour_start < ?
+                             GROUP BY product_id) r
+                      LEFT JOIN products p ON p.id = r.product_id
+                     ORDER BY %s, r.product_id
+                     LIMIT ?
+                    """.formatted(order));
+            ps.setTimestamp(1, Timestamp.from(from), UTC);
+            ps.setTimestamp(2, Timestamp.from(to), UTC);
+            ps.setInt(3, limit);
+            return ps;
+        }, (rs, i) -> new ProductRow(rs.getLong(1), rs.getString(2), rs.getLong(3), money(rs, 4)));
+    }
+
+    // Abre la reconstrucción: bloquea la valla (espera a las órdenes que ya la leyeron), vacía las tablas y
+    // fija el último id que se reconstruye. maxOrderId se evalúa con la valla bloqueada, en esta misma transacción.
+    public long beginRebuild(LongSupplier maxOrderId) {
+        jdbc.update("""
+                INSERT INTO sales_rollup_fence (id, rebuild_up_to, rebuilt_up_to) VALUES (?, 0, 0)
+                ON DUPLICATE KEY UPDATE rebuild_up_to = rebuild_up_to
+                """, FENCE_ID);
+        deleteAll();
+        long upTo = maxOrderId.getAsLong();
+        moveFence(upTo, 0);
+        return upTo;
+    }
+
+    // Recalcula desde orders/order_items (y su archivo) las órdenes con id en (after, upTo]; devuelve cuántas leyó.
+    // Se suma con +delta como el resto, tras beginRebuild() y tramo a tramo en orden de id.
+    public int rebuildChunk(long after, long upTo) {
+        // 1) bloquea las órdenes del tramo: las que se están escribiendo terminan antes de leerlas
+        jdbc.queryForList("SELECT id FROM orders WHERE id > ? AND id <= ? FOR UPDATE", Long.class, after, upTo);
+        // 2) desde el commit de este tramo, sus órdenes vuelven a sumar su delta
+        jdbc.update("UPDATE sales_rollup_fence SET rebuilt_up_to = ? WHERE id = ?", upTo, FENCE_ID);
+
+        // 3) lectura: ya ve lo confirmado por esas órdenes (y lo que el archivador movió)
+        Map<Instant, SalesDelta> byHour = new HashMap<>();
+        long[] last = {-1, 0}; // {último id de orden visto, órdenes leídas}
+        jdbc.query("""
+                SELECT o.id, o.created_at, i.product_id, i.quantity, i.subtotal
+                  FROM orders o LEFT JOIN order_items i ON i.order_id = o.id
+                 WHERE o.id > ? AND o.id <= ? AND o.status = 'ACTIVE'
+                UNION ALL
+                SELECT a.id, a.created_at, ai.product_id, ai.quantity, ai.subtotal
+                  FROM orders_archive a LEFT JOIN order_items_archive ai ON ai.order_id = a.id
+                 WHERE a.id > ? AND a.id <= ?
+                 ORDER BY 1
+                """, rs -> {
+            Instant createdAt = rs.getTimestamp(2, UTC).toInstant();
+            SalesDelta delta = byHour.computeIfAbsent(createdAt.truncatedTo(ChronoUnit.HOURS), SalesDelta::at);
+            long orderId = rs.getLong(1);
+            if (orderId != last[0]) {
+                last[0] = orderId;
+                last[1]++;
+                delta.orders(1);
+            }
+            long productId = rs.getLong(3);
+            if (!rs.wasNull()) {
+                delta.line(productId, rs.getInt(4), Money.of(rs.getBigDecimal(5)).cents());
+            }
+        }, after, upTo, after, upTo);
+
+        byHour.values().forEach(d -> apply(d, 0));
+        return (int) last[1];
+    }
+
+    // Cierra la reconstrucción: todas las órdenes vuelven a sumar su delta
+    public void endRebuild() {
+        moveFence(0, 0);
+    }
+
+    private void moveFence(long rebuildUpTo, long rebuiltUpTo) {
+        jdbc.update("UPDATE sales_rollup_fence SET rebuild_up_to = ?, rebuilt_up_to = ? WHERE id = ?",
+                rebuildUpTo, rebuiltUpTo, FENCE_ID);
+    }
+
+    private void deleteAll() {
+        jdbc.update("DELETE FROM product_sales_hourly");
+        jdbc.update("DELETE FROM sales_hourly");
+    }
+
+    private static Money money(ResultSet rs, int column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? Money.ZERO : Money.of(value);
+    }
+}
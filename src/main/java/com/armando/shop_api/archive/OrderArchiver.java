@@ -0,0 +1,113 @@
+package com.armando.shop_api.archive;
+
+import com.armando.shop_api.repository.ArchivedOrderItemRepository;
+import com.armando.shop_api.repository.ArchivedOrderRepository;
+import com.armando.shop_api.repository.OrderItemRepository;
+import com.armando.shop_api.repository.OrderRepository;
+import com.armando.shop_api.repository.OrderViewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Mueve las órdenes activas más antiguas que max-age a orders_archive / order_items_archive.
+// Cada lote es una transacción corta (copiar y borrar por id); entre lotes hay una pausa y cada
+// ejecución procesa como mucho max-batches, para no competir con el tráfico normal.
+// El resumen por usuario y los rollups de ventas no cambian: las órdenes archivadas siguen contando.
+@Component
+public class OrderArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderItemRepository archivedItemRepository;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration pause;
+
+    public OrderArchiver(
+            OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
+            OrderViewRepository orderViewRepository,
+            ArchivedOrderRepository archivedOrderRepository,
+            ArchivedOrderItemRepository archivedItemRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.archive.enabled:false}") boolean enabled,
+            @Value("${app.orders.archive.max-age:365d}") Duration maxAge,
+            @Value("${app.orders.archive.batch-size:500}") int batchSize,
+            @Value("${app.orders.archive.max-batches:100}") int maxBatches,
+            @Value("${app.orders.archive.pause:200ms}") Duration pause
+    ) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.orderViewRepository = orderViewRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.archivedItemRepository = archivedItemRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pause = pause;
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.archive.interval:1h}")
+    public void scheduled() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    public int archive() {
+        Instant cutoff = Instant.now().minus(maxAge);
+        int total = 0;
+        int moved = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            if (batch > 0 && !sleep()) break;
+            moved = tx.execute(s -> archiveBatch(cutoff));
+            total += moved;
+            if (moved < batchSize) break;
+        }
+
+        if (total > 0) {
+            log.info("Archived {} orders (created before {}){}", total, cutoff,
+                    moved == batchSize ? ", more pending for the next run" : "");
+        }
+        return total;
+    }
+
+    private int archiveBatch(Instant cutoff) {
+        List<Long> ids = orderRepository.findArchivable(cutoff, Limit.of(batchSize));
+        if (ids.isEmpty()) return 0;
+        Instant now = Instant.now();
+        archivedOrderRepository.copyFromOrders(ids, now);
+        archivedItemRepository.copyFromOrderItems(ids);
+        orderViewRepository.deleteByOrderIdIn(ids);
+        orderItemRepository.deleteByOrderIdIn(ids);
+        return orderRepository.deleteByIdIn(ids);
+    }
+
+    private boolean sleep() {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.armando.shop_api.cache;
+
+public record CacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        int size,
+        int maxSize
+) {}
@@ -0,0 +1,92 @@
+package com.armando.shop_api.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+// Caché acotada en memoria: LRU por tamaño + expiración por TTL.
+// Las lecturas son O(1) bajo un lock corto; pensada para claves calientes, no para millones de entradas.
+public class LruTtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruTtlCache(int maxSize, Duration ttl) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        // accessOrder=true → el primero es el menos usado recientemente
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruTtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            if (e != null && e.expiresAtNanos() - now > 0) {
+                hits.increment();
+                return e.value();
+            }
+            if (e != null) {
+                map.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        Entry<V> e = new Entry<>(value, System.nanoTime() + ttlNanos);
+        synchronized (map) {
+            map.put(key, e);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    // Quita las entradas que cumplen la condición; recorre toda la caché (pensado para unos miles de entradas)
+    public void invalidateIf(BiPredicate<K, V> condition) {
+        synchronized (map) {
+            map.entrySet().removeIf(e -> condition.test(e.getKey(), e.getValue().value()));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size(), maxSize);
+    }
+}
@@ -0,0 +1,86 @@
+package com.armando.shop_api.cache;
+
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.ProductQuery;
+import com.armando.shop_api.dto.ProductResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Caché read-through del catálogo: productos por id + páginas de GET /products por query
+@Component
+public class ProductCache {
+
+    private final LruTtlCache<Long, ProductResponse> items;
+    private final LruTtlCache<ProductQuery, CursorPage<ProductResponse>> pages;
+
+    public ProductCache(
+            @Value("${app.catalog-cache.max-items:10000}") int maxItems,
+            @Value("${app.catalog-cache.max-pages:1000}") int maxPages,
+            @Value("${app.catalog-cache.ttl:60s}") Duration ttl
+    ) {
+        this.items = new LruTtlCache<>(maxItems, ttl);
+        this.pages = new LruTtlCache<>(maxPages, ttl);
+    }
+
+    public ProductResponse getItem(Long id) {
+        return items.get(id);
+    }
+
+    public void putItem(ProductResponse p) {
+        items.put(p.getId(), p);
+    }
+
+    public CursorPage<ProductResponse> getPage(ProductQuery q) {
+        return pages.get(q);
+    }
+
+    public void putPage(ProductQuery q, CursorPage<ProductResponse> page) {
+        pages.put(q, page);
+    }
+
+    // Un producto cambió (datos o stock) o es nuevo: fuera su entrada y las páginas que cubren su id
+    public void evict(Long productId) {
+        evictNow(productId);
+        // si estamos en una transacción, se repite tras el commit para no dejar
+        // en caché lo que otro hilo haya leído antes de confirmar
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(productId);
+                }
+            });
+        }
+    }
+
+    // Altas en bloque (importación) sin conocer los ids: todas las páginas quedan obsoletas
+    public void evictPages() {
+        pages.invalidateAll();
+    }
+
+    public void evictAll() {
+        items.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    public Map<String, CacheStats> stats() {
+        return Map.of("items", items.stats(), "pages", pages.stats());
+    }
+
+    private void evictNow(Long productId) {
+        items.invalidate(productId);
+        pages.invalidateIf((q, page) -> covers(q, page, productId));
+    }
+
+    // Una página keyset cubre los ids (after, nextCursor]; la última, de after en adelante. Se tira aunque
+    // el producto no esté en ella: con filtros (precio, inStock) un cambio puede hacerlo entrar.
+    static boolean covers(ProductQuery q, CursorPage<ProductResponse> page, long productId) {
+        long after = q.after() == null ? 0L : q.after();
+        return productId > after && (page.nextCursor() == null || productId <= page.nextCursor());
+    }
+}
@@ -0,0 +1,82 @@
+package com.armando.shop_api.config;
+
+import com.armando.shop_api.datasource.ReadWriteRoutingDataSource;
+import com.armando.shop_api.datasource.ReadWriteRoutingDataSource.Target;
+import com.armando.shop_api.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// Réplica de lectura opcional (app.datasource.replica.enabled=true).
+// La primaria sigue configurándose con spring.datasource.*; la réplica con app.datasource.replica.*.
+// Sin la propiedad, Spring Boot crea el DataSource único de siempre.
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${app.datasource.replica.max-pool-size:10}") int maxPoolSize
+    ) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("replica");
+        ds.setJdbcUrl(url);
+        ds.setUsername(username);
+        ds.setPassword(password);
+        ds.setMaximumPoolSize(maxPoolSize);
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    @Bean(initMethod = "createHeartbeatTable")
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${app.datasource.replica.max-lag:2s}") Duration maxLag
+    ) {
+        return new ReplicaLagMonitor(primary, replica, maxLag);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            ReplicaLagMonitor monitor,
+            @Value("${app.datasource.replica.read-your-writes:5s}") Duration readYourWrites
+    ) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(monitor::isUsable, readYourWrites);
+        routing.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        return routing;
+    }
+
+    // El proxy perezoso retrasa la conexión real hasta la primera sentencia,
+    // cuando el flag readOnly de la transacción ya está fijado
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
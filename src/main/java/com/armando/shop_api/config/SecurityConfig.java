@@ -1,6 +1,7 @@
 package com.armando.shop_api.config;
 
 import com.armando.shop_api.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -59,6 +60,9 @@ public class SecurityConfig {
                         // preflight de CORS
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // despacho async (respuestas CompletableFuture): la petición ya se autorizó al entrar
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // auth endpoints
                         .requestMatchers("/auth/**").permitAll()
 
@@ -70,6 +74,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/products/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/products/**").hasRole("ADMIN")
 
+                        // endpoints de administración
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
+
                         // orders requiere JWT
                         .requestMatchers("/orders/**").authenticated()
 
@@ -0,0 +1,58 @@
+package com.armando.shop_api.controller;
+
+import com.armando.shop_api.dto.BasketStatsResponse;
+import com.armando.shop_api.dto.RevenueBucketResponse;
+import com.armando.shop_api.dto.RollupRebuildResponse;
+import com.armando.shop_api.dto.TopProductResponse;
+import com.armando.shop_api.service.SalesAnalyticsService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+// Informes de ventas (ADMIN). from/to en ISO-8601 (UTC); por defecto los últimos 7 días.
+@RestController
+@RequestMapping("/admin/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminAnalyticsController {
+
+    private final SalesAnalyticsService analyticsService;
+
+    public AdminAnalyticsController(SalesAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    // Ingresos por hora (máx. 31 días) o por día (máx. 366 días)
+    @GetMapping("/revenue")
+    public List<RevenueBucketResponse> revenue(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "day") String granularity) {
+        return analyticsService.revenue(from, to, granularity);
+    }
+
+    // Productos más vendidos por unidades o por importe
+    @GetMapping("/top-products")
+    public List<TopProductResponse> topProducts(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "units") String by,
+            @RequestParam(defaultValue = "10") int limit) {
+        return analyticsService.topProducts(from, to, by, limit);
+    }
+
+    // Cesta media del periodo
+    @GetMapping("/basket")
+    public BasketStatsResponse basket(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        return analyticsService.basket(from, to);
+    }
+
+    // Recalcula las tablas por hora desde orders (por tramos); para ventanas de mantenimiento
+    @PostMapping("/rebuild")
+    public RollupRebuildResponse rebuild() {
+        return analyticsService.rebuild();
+    }
+}
@@ -0,0 +1,91 @@
+package com.armando.shop_api.controller;
+
+import com.armando.shop_api.cache.CacheStats;
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.intake.OrderIntakeQueue;
+import com.armando.shop_api.inventory.HotSkuStats;
+import com.armando.shop_api.inventory.InventoryLedger;
+import com.armando.shop_api.retry.OptimisticRetryAspect;
+import com.armando.shop_api.retry.RetryStats;
+import com.armando.shop_api.security.JwtService;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    private final ProductCache productCache;
+    private final OptimisticRetryAspect retryAspect;
+    private final InventoryLedger inventoryLedger;
+    private final OrderIntakeQueue orderIntake;
+    private final JwtService jwtService;
+
+    public AdminController(
+            ProductCache productCache,
+            OptimisticRetryAspect retryAspect,
+            InventoryLedger inventoryLedger,
+            OrderIntakeQueue orderIntake,
+            JwtService jwtService
+    ) {
+        this.productCache = productCache;
+        this.retryAspect = retryAspect;
+        this.inventoryLedger = inventoryLedger;
+        this.orderIntake = orderIntake;
+        this.jwtService = jwtService;
+    }
+
+    // Contadores hit/miss/evictions de la caché de catálogo
+    @GetMapping("/cache/products")
+    public Map<String, CacheStats> productCacheStats() {
+        return productCache.stats();
+    }
+
+    @DeleteMapping("/cache/products")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clearProductCache() {
+        productCache.evictAll();
+    }
+
+    // Tokens verificados en caché: cada hit es una verificación HMAC + parseo ahorrados
+    @GetMapping("/cache/jwt")
+    public CacheStats jwtCacheStats() {
+        return jwtService.cacheStats();
+    }
+
+    // Conflictos de bloqueo optimista por método y presupuesto de reintentos restante
+    @GetMapping("/metrics/conflicts")
+    public Map<String, Object> conflictStats() {
+        Map<String, RetryStats> methods = retryAspect.stats();
+        return Map.of("methods", methods, "retryBudget", retryAspect.remainingBudget());
+    }
+
+    // Profundidad de la cola de órdenes asíncronas
+    @GetMapping("/metrics/order-intake")
+    public Map<String, Object> orderIntakeStats() {
+        return orderIntake.stats();
+    }
+
+    // SKUs calientes servidos desde memoria: stock asignado, restante y recargas
+    @GetMapping("/inventory/hot")
+    public List<HotSkuStats> hotInventory() {
+        return inventoryLedger.stats();
+    }
+
+    @PostMapping("/inventory/hot/{productId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void activateHot(@PathVariable Long productId) {
+        inventoryLedger.activate(productId);
+    }
+
+    @DeleteMapping("/inventory/hot/{productId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deactivateHot(@PathVariable Long productId) {
+        inventoryLedger.deactivate(productId);
+    }
+}
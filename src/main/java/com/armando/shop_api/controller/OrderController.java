@@ -1,30 +1,94 @@
 package com.armando.shop_api.controller;
 
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.OrderBatchRequest;
+import com.armando.shop_api.dto.OrderBatchResponse;
 import com.armando.shop_api.dto.OrderCreateRequest;
 import com.armando.shop_api.dto.OrderResponse;
+import com.armando.shop_api.dto.OrderTicketResponse;
+import com.armando.shop_api.dto.UserOrderSummaryResponse;
+import com.armando.shop_api.idempotency.IdempotencyStore;
+import com.armando.shop_api.intake.OrderIntakeQueue;
+import com.armando.shop_api.service.ArchivedOrderService;
+import com.armando.shop_api.service.OrderBatchService;
 import com.armando.shop_api.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderBatchService orderBatchService;
+    private final IdempotencyStore idempotencyStore;
+    private final OrderIntakeQueue orderIntake;
+    private final ArchivedOrderService archivedOrderService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(
+            OrderService orderService,
+            OrderBatchService orderBatchService,
+            IdempotencyStore idempotencyStore,
+            OrderIntakeQueue orderIntake,
+            ArchivedOrderService archivedOrderService
+    ) {
         this.orderService = orderService;
+        this.orderBatchService = orderBatchService;
+        this.idempotencyStore = idempotencyStore;
+        this.orderIntake = orderIntake;
+        this.archivedOrderService = archivedOrderService;
     }
 
-    // 🔒 Crear orden (requiere JWT)
+    // 🔒 Crear orden (requiere JWT). Con Idempotency-Key un reintento devuelve la misma orden sin repetirla.
+    // Con "Prefer: respond-async" (y el modo asíncrono activo) se encola y responde 202 con un trackingId.
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public OrderResponse create(@Valid @RequestBody OrderCreateRequest req, Authentication auth) {
-        return orderService.create(req, auth.getName());
+    public ResponseEntity<?> create(
+            @Valid @RequestBody OrderCreateRequest req,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
+            Authentication auth) {
+
+        if (idempotencyKey == null && prefer != null && prefer.contains("respond-async") && orderIntake.isEnabled()) {
+            OrderTicketResponse ticket = orderIntake.submit(req, auth.getName());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/orders/intake/" + ticket.trackingId()))
+                    .header("Preference-Applied", "respond-async")
+                    .body(ticket);
+        }
+
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(orderService.create(req, auth.getName()));
+        }
+
+        var result = idempotencyStore.execute(auth.getName(), idempotencyKey, req, OrderResponse.class,
+                () -> orderService.create(req, auth.getName()));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.response());
+    }
+
+    // Alta masiva: muchas órdenes en una llamada, resultado por orden (las rechazadas no afectan al resto)
+    @PostMapping("/batch")
+    public OrderBatchResponse createBatch(@Valid @RequestBody OrderBatchRequest req, Authentication auth) {
+        return orderBatchService.createBatch(req.getOrders(), auth.getName());
+    }
+
+    // Estado de una orden encolada; wait (segundos, máx. 30) espera a que se resuelva.
+    // Los tickets están en memoria: solo los conoce la instancia que aceptó la orden.
+    @GetMapping("/intake/{trackingId}")
+    public CompletableFuture<OrderTicketResponse> intakeStatus(
+            @PathVariable String trackingId,
+            @RequestParam(defaultValue = "0") int wait,
+            Authentication auth) {
+        int seconds = Math.max(0, Math.min(wait, 30));
+        return orderIntake.status(trackingId, auth.getName(), Duration.ofSeconds(seconds));
     }
 
     // Actualizar mi orden
@@ -43,10 +107,36 @@ public class OrderController {
         orderService.delete(id, auth.getName());
     }
 
-    // Listar mis órdenes
+    // Listar mis órdenes (más recientes primero, paginado por cursor; summary=true omite las líneas)
     @GetMapping
-    public List<OrderResponse> listMine(Authentication auth) {
-        return orderService.listMine(auth.getName());
+    public CursorPage<?> listMine(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean summary,
+            Authentication auth) {
+        return summary
+                ? orderService.listMineSummary(auth.getName(), before, limit)
+                : orderService.listMine(auth.getName(), before, limit);
+    }
+
+    // Resumen de mi cuenta: nº de órdenes, gasto total y fecha de la última (una lectura por clave)
+    @GetMapping("/summary")
+    public UserOrderSummaryResponse summaryMine(Authentication auth) {
+        return orderService.summaryMine(auth.getName());
+    }
+
+    // Mis órdenes archivadas (antiguas, fuera de la tabla caliente), mismo formato y paginación
+    @GetMapping("/archive")
+    public CursorPage<OrderResponse> listMineArchived(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication auth) {
+        return archivedOrderService.listMine(auth.getName(), before, limit);
+    }
+
+    @GetMapping("/archive/{id}")
+    public OrderResponse getMineArchived(@PathVariable Long id, Authentication auth) {
+        return archivedOrderService.getMine(id, auth.getName());
     }
 
     // Ver mi orden por id
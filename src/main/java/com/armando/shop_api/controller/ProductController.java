@@ -1,13 +1,26 @@
 package com.armando.shop_api.controller;
 
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.ProductImportResponse;
+import com.armando.shop_api.dto.ProductQuery;
 import com.armando.shop_api.dto.ProductRequest;
 import com.armando.shop_api.dto.ProductResponse;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.service.ProductImportService;
 import com.armando.shop_api.service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
 
 @RestController
@@ -15,21 +28,60 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService service;
+    private final ProductImportService importService;
 
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service, ProductImportService importService) {
         this.service = service;
+        this.importService = importService;
     }
 
-    // GET público
+    // Los clientes pueden guardar la respuesta pero deben revalidarla (If-None-Match)
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    // GET público (paginado por cursor: ?after=<nextCursor>&limit=N)
     @GetMapping
-    public List<ProductResponse> list() {
-        return service.list();
+    public ResponseEntity<CursorPage<ProductResponse>> list(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Money minPrice,
+            @RequestParam(required = false) Money maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            WebRequest request) {
+
+        var page = service.list(new ProductQuery(after, limit, minPrice, maxPrice, inStock));
+        // el ETag sale del contenido (id y version de cada producto): todas las instancias
+        // calculan el mismo valor para el mismo cuerpo, sin un contador compartido
+        String etag = "\"c" + pageVersion(page) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null; // 304 sin serializar
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(page);
+    }
+
+    // GET público: búsqueda por nombre (prefijo / token) sobre el índice en memoria
+    @GetMapping("/search")
+    public List<ProductResponse> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return service.search(q, limit);
     }
 
-    // GET público
+    // GET público: catálogo completo en NDJSON, en streaming y con memoria constante
+    @GetMapping("/export")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        service.exportNdjson(response.getOutputStream());
+    }
+
+    // GET público (If-None-Match → 304 sin serializar; Spring compara el ETag)
     @GetMapping("/{id}")
-    public ProductResponse get(@PathVariable Long id) {
-        return service.get(id);
+    public ResponseEntity<ProductResponse> get(@PathVariable Long id) {
+        ProductResponse p = service.get(id);
+        return ResponseEntity.ok()
+                .eTag("\"p" + p.getId() + "-" + p.getVersion() + "\"")
+                .cacheControl(REVALIDATE)
+                .body(p);
     }
 
     // SOLO ADMIN
@@ -40,6 +92,20 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    // SOLO ADMIN: importación masiva en streaming (CSV con cabecera id,name,price,stock)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ProductImportResponse importCsv(InputStream body) {
+        return importService.importCsv(body);
+    }
+
+    // SOLO ADMIN: importación masiva en streaming (un objeto JSON por línea)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ProductImportResponse importNdjson(InputStream body) {
+        return importService.importNdjson(body);
+    }
+
     // SOLO ADMIN
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("/{id}")
@@ -54,4 +120,19 @@ public class ProductController {
     public void delete(@PathVariable Long id) {
         service.delete(id);
     }
+
+    // SHA-256 de los pares id:version (version cambia con cualquier edición o movimiento de stock) y del cursor
+    private static String pageVersion(CursorPage<ProductResponse> page) {
+        StringBuilder sb = new StringBuilder();
+        for (ProductResponse p : page.items()) {
+            sb.append(p.getId()).append(':').append(p.getVersion()).append(';');
+        }
+        sb.append(page.nextCursor());
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
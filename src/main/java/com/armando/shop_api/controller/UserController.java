@@ -1,8 +1,14 @@
 package com.armando.shop_api.controller;
 
+import com.armando.shop_api.security.UserPrincipal;
+import com.armando.shop_api.service.AuthService;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
@@ -11,6 +17,12 @@ import java.util.Map;
 @RestController
 public class UserController {
 
+    private final AuthService authService;
+
+    public UserController(AuthService authService) {
+        this.authService = authService;
+    }
+
     @GetMapping("/me")
     public Map<String, Object> me(Authentication authentication) {
         if (authentication == null) {
@@ -31,7 +43,7 @@ public class UserController {
 
         Object principal = authentication.getPrincipal();
 
-        if (principal instanceof com.armando.shop_api.security.UserPrincipal p) {
+        if (principal instanceof UserPrincipal p) {
             res.put("id", p.getId());
             res.put("fullName", p.getFullName());
             res.put("email", p.getEmail());
@@ -41,4 +53,10 @@ public class UserController {
         return res;
     }
 
+    // Cerrar todas mis sesiones: los tokens emitidos hasta ahora dejan de valer
+    @PostMapping("/me/logout-all")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logoutAll(@AuthenticationPrincipal UserPrincipal principal) {
+        authService.logoutAll(principal.getId());
+    }
 }
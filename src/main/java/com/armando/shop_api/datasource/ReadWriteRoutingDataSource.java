@@ -0,0 +1,96 @@
+package com.armando.shop_api.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+// Transacciones readOnly -> réplica; el resto -> primaria.
+// Va detrás de un LazyConnectionDataSourceProxy: la conexión real se pide en la primera sentencia,
+// cuando la transacción ya está marcada como readOnly o no.
+// Se vuelve a la primaria si la réplica va retrasada (ReplicaLagMonitor) o si el usuario acaba de
+// escribir (read-your-writes: durante una ventana corta lee su propio dato desde la primaria).
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final Object WRITE_MARKER = new Object();
+
+    private final BooleanSupplier replicaUsable;
+    private final long readYourWritesNanos;
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReadWriteRoutingDataSource(BooleanSupplier replicaUsable, Duration readYourWrites) {
+        this.replicaUsable = replicaUsable;
+        this.readYourWritesNanos = readYourWrites.toNanos();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWrite();
+            return Target.PRIMARY;
+        }
+        if (isPinned(currentUser()) || !replicaUsable.getAsBoolean()) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    // Tras el commit de una escritura, el usuario lee de la primaria durante la ventana configurada
+    private void rememberWrite() {
+        String user = currentUser();
+        if (user == null || readYourWritesNanos <= 0
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_MARKER)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_MARKER, user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pin(user);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_MARKER);
+            }
+        });
+    }
+
+    void pin(String user) {
+        pinnedUntil.put(user, System.nanoTime() + readYourWritesNanos);
+    }
+
+    boolean isPinned(String user) {
+        if (user == null) return false;
+        Long until = pinnedUntil.get(user);
+        if (until == null) return false;
+        if (until - System.nanoTime() > 0) return true;
+        pinnedUntil.remove(user, until);
+        return false;
+    }
+
+    // Limpieza periódica de usuarios que ya no tienen ventana activa
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpiredPins() {
+        long now = System.nanoTime();
+        pinnedUntil.entrySet().removeIf(e -> e.getValue() - now <= 0);
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || !auth.isAuthenticated() ? null : auth.getName();
+    }
+}
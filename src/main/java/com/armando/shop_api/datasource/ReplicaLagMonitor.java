@@ -0,0 +1,91 @@
+package com.armando.shop_api.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+// Retraso de la réplica medido con un latido: se escribe la hora en la primaria y se lee en la réplica.
+// Portable (no necesita privilegios para SHOW REPLICA STATUS) y mide el retraso real de los datos.
+// Si el retraso supera max-lag o la réplica no responde, las lecturas vuelven a la primaria.
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String CREATE = """
+            CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)
+            """;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+
+    private volatile boolean heartbeatTableReady;
+    private volatile boolean usable;
+    private volatile long lastLagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    // DDL una sola vez, al arrancar (initMethod del bean); check() solo escribe y lee el latido
+    public void createHeartbeatTable() {
+        try {
+            primary.execute(CREATE);
+            heartbeatTableReady = true;
+        } catch (RuntimeException ex) {
+            // primaria caída al arrancar: check() lo reintenta hasta que la tabla exista
+            log.warn("Replica heartbeat table could not be created: {}", ex.getMessage());
+        }
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public long lastLagMillis() {
+        return lastLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:1s}")
+    public void check() {
+        if (!heartbeatTableReady) {
+            createHeartbeatTable();
+        }
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            }
+        } catch (RuntimeException ex) {
+            // sin primaria no hay latido fiable: no se arriesga a leer datos viejos
+            log.warn("Replica heartbeat write failed: {}", ex.getMessage());
+            setUsable(false);
+            return;
+        }
+
+        try {
+            List<Long> beats = replica.queryForList("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+            long lag = beats.isEmpty() ? Long.MAX_VALUE : Math.max(0, now - beats.get(0));
+            lastLagMillis = lag;
+            setUsable(lag <= maxLagMillis);
+        } catch (RuntimeException ex) {
+            log.warn("Replica heartbeat read failed: {}", ex.getMessage());
+            lastLagMillis = -1;
+            setUsable(false);
+        }
+    }
+
+    private void setUsable(boolean value) {
+        if (usable != value) {
+            log.info("Read replica {}", value ? "in use" : "bypassed, reads go to primary");
+        }
+        usable = value;
+    }
+}
@@ -0,0 +1,12 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+// Cesta media de un periodo: importe medio por orden y unidades medias por orden
+public record BasketStatsResponse(
+        long orders,
+        long units,
+        Money revenue,
+        Money averageBasket,
+        double averageUnits
+) {}
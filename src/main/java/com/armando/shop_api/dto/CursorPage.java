@@ -0,0 +1,9 @@
+package com.armando.shop_api.dto;
+
+import java.util.List;
+
+// Página basada en cursor: nextCursor es null cuando no hay más resultados
+public record CursorPage<T>(
+        List<T> items,
+        Long nextCursor
+) {}
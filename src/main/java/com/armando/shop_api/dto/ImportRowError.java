@@ -0,0 +1,6 @@
+package com.armando.shop_api.dto;
+
+public record ImportRowError(
+        long line,
+        String error
+) {}
@@ -0,0 +1,17 @@
+package com.armando.shop_api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter @Setter
+public class OrderBatchRequest {
+
+    @NotEmpty(message = "orders is required")
+    @Size(max = 500, message = "at most 500 orders per batch")
+    private List<@Valid OrderCreateRequest> orders;
+}
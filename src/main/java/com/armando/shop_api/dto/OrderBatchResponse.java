@@ -0,0 +1,9 @@
+package com.armando.shop_api.dto;
+
+import java.util.List;
+
+public record OrderBatchResponse(
+        int created,
+        int rejected,
+        List<OrderBatchResult> results
+) {}
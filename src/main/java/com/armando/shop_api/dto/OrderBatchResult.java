@@ -0,0 +1,11 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+// Resultado de una orden del lote: orderId/total si se creó, error si se rechazó
+public record OrderBatchResult(
+        int index,
+        Long orderId,
+        Money total,
+        String error
+) {}
@@ -1,11 +1,11 @@
 package com.armando.shop_api.dto;
 
-import java.math.BigDecimal;
+import com.armando.shop_api.money.Money;
 
 public record OrderItemResponse(
         Long productId,
         String productName,
         Integer quantity,
-        BigDecimal unitPrice,
-        BigDecimal subtotal
+        Money unitPrice,
+        Money subtotal
 ) {}
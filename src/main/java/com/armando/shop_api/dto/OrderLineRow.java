@@ -0,0 +1,10 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+// Línea de una orden sin hidratar OrderItem/Product (cancelación)
+public record OrderLineRow(
+        Long productId,
+        int quantity,
+        Money subtotal
+) {}
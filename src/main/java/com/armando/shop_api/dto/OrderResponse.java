@@ -1,6 +1,7 @@
 package com.armando.shop_api.dto;
 
-import java.math.BigDecimal;
+import com.armando.shop_api.money.Money;
+
 import java.time.Instant;
 import java.util.List;
 
@@ -8,7 +9,7 @@ public record OrderResponse(
         Long id,
         Long userId,
         String userEmail,
-        BigDecimal total,
+        Money total,
         List<OrderItemResponse> items,
         Instant createdAt,
         String createdBy,
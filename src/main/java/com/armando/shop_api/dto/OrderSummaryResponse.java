@@ -0,0 +1,14 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+import java.time.Instant;
+
+// Orden sin líneas, para listados largos (GET /orders?summary=true)
+public record OrderSummaryResponse(
+        Long id,
+        Money total,
+        int itemCount,
+        Instant createdAt,
+        Instant updatedAt
+) {}
@@ -0,0 +1,12 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+// Estado de una orden encolada (modo asíncrono): PENDING -> CREATED | REJECTED
+public record OrderTicketResponse(
+        String trackingId,
+        String status,
+        Long orderId,
+        Money total,
+        String error
+) {}
@@ -0,0 +1,13 @@
+package com.armando.shop_api.dto;
+
+import java.util.List;
+
+public record ProductImportResponse(
+        long processed,
+        long imported,
+        long failed,
+        List<ImportRowError> errors,
+        boolean errorsTruncated,
+        long elapsedMs,
+        long rowsPerSecond
+) {}
@@ -0,0 +1,12 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+// Parámetros de GET /products (keyset por id + filtros)
+public record ProductQuery(
+        Long after,
+        int limit,
+        Money minPrice,
+        Money maxPrice,
+        boolean inStock
+) {}
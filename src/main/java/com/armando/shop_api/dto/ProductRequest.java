@@ -5,12 +5,16 @@ import java.math.BigDecimal;
 
 public class ProductRequest {
 
+    @Size(max = 64, message = "sku max 64 chars")
+    private String sku;
+
     @NotBlank(message = "name is required")
     @Size(max = 120, message = "name max 120 chars")
     private String name;
 
     @NotNull(message = "price is required")
     @DecimalMin(value = "0.01", message = "price must be > 0")
+    @Digits(integer = 10, fraction = 2, message = "price must have at most 2 decimals")
     private BigDecimal price;
 
     @NotNull(message = "stock is required")
@@ -18,6 +22,9 @@ public class ProductRequest {
     private Integer stock;
 
     // getters/setters
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
@@ -1,14 +1,18 @@
 package com.armando.shop_api.dto;
 
+import com.armando.shop_api.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
-import java.math.BigDecimal;
-
 @Getter @Setter
 @AllArgsConstructor
 public class ProductResponse {
     private Long id;
+    private String sku;
     private String name;
-    private BigDecimal price;
+    private Money price;
     private Integer stock;
+
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,14 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+import java.time.Instant;
+
+// Ventas de una hora o de un día (UTC); averageBasket = revenue / orders
+public record RevenueBucketResponse(
+        Instant bucketStart,
+        long orders,
+        long units,
+        Money revenue,
+        Money averageBasket
+) {}
@@ -0,0 +1,7 @@
+package com.armando.shop_api.dto;
+
+public record RollupRebuildResponse(
+        long orders,
+        int chunks,
+        long millis
+) {}
@@ -0,0 +1,10 @@
+package com.armando.shop_api.dto;
+
+import java.time.Instant;
+
+// Versión mínima de token vigente de un usuario (TokenRevocations)
+public record TokenVersionRow(
+        Long userId,
+        int tokenVersion,
+        Instant revokedAt
+) {}
@@ -0,0 +1,10 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+public record TopProductResponse(
+        Long productId,
+        String name,
+        long units,
+        Money revenue
+) {}
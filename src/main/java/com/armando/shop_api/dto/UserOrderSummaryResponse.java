@@ -0,0 +1,12 @@
+package com.armando.shop_api.dto;
+
+import com.armando.shop_api.money.Money;
+
+import java.time.Instant;
+
+// Cabecera "tu cuenta": cuántas órdenes, cuánto se ha gastado y cuándo fue la última (GET /orders/summary)
+public record UserOrderSummaryResponse(
+        long orderCount,
+        Money totalSpent,
+        Instant lastOrderAt
+) {}
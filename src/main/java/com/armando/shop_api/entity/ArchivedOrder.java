@@ -0,0 +1,43 @@
+package com.armando.shop_api.entity;
+
+import com.armando.shop_api.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Orden archivada (orders_archive): copia de una orden antigua que ya salió de la tabla caliente.
+// Conserva el id y la auditoría originales; sin claves foráneas, para poder particionar por created_at.
+// Solo la escribe OrderArchiver y solo se lee desde /orders/archive.
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "orders_archive",
+        indexes = @Index(name = "idx_orders_archive_user_id_id", columnList = "user_id, id"))
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money total;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false, length = 190)
+    private String createdBy;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @Column(nullable = false, length = 190)
+    private String updatedBy;
+
+    @Column(nullable = false)
+    private Instant archivedAt;
+}
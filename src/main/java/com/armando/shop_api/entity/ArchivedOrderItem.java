@@ -0,0 +1,42 @@
+package com.armando.shop_api.entity;
+
+import com.armando.shop_api.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Línea de una orden archivada (order_items_archive). Guarda el nombre del producto tal como se pidió
+// y el created_at de su orden (clave de partición, igual que en orders_archive).
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "order_items_archive",
+        indexes = @Index(name = "idx_order_items_archive_order_id", columnList = "order_id"))
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private String productName;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money unitPrice;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money subtotal;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
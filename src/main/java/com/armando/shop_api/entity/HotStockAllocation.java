@@ -0,0 +1,39 @@
+package com.armando.shop_api.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Stock que una instancia ha retirado de products.stock para servirlo desde memoria (SKUs calientes).
+// sinceItemId = último order_items.id al activar: lo vendido desde entonces se recalcula desde order_items.
+// fallbackReserved = unidades de esas líneas que salieron de products.stock (contador vacío), no de la asignación.
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "hot_stock_allocations",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"owner", "product_id"}))
+public class HotStockAllocation {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private long allocated;
+
+    @Column(nullable = false)
+    private long sinceItemId;
+
+    @Column(nullable = false)
+    private long fallbackReserved;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,42 @@
+package com.armando.shop_api.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Respuesta ya entregada para un Idempotency-Key (por usuario). La fila se inserta antes de crear la
+// orden, sin respuesta y ya con la caducidad final (ttl); al terminar se guarda la respuesta.
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_email", "idem_key"}),
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_email", nullable = false, length = 150)
+    private String userEmail;
+
+    @Column(name = "idem_key", nullable = false, length = 100)
+    private String idemKey;
+
+    // SHA-256 del cuerpo: la misma clave con otro cuerpo es un error del cliente
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // null mientras la petición está en curso
+    @Column(columnDefinition = "TEXT")
+    private String responseJson;
+
+    // Momento en que se tomó la clave: sin respuesta pasado pending-timeout, el resultado es desconocido
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
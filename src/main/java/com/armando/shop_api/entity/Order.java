@@ -1,9 +1,11 @@
 package com.armando.shop_api.entity;
 
+import com.armando.shop_api.money.Money;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,7 +15,14 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "orders")
+// idx_orders_user_id_id: índice de la FK user_id (InnoDB exige uno que empiece por user_id), keyset del listado
+// mientras faltan vistas (OrderRepository.findPageIds) y recálculos del resumen por usuario
+// (UserOrderSummaryRepository: rebuild, removeOrder y backfillRange filtran orders por user_id)
+@Table(name = "orders",
+        indexes = {
+                @Index(name = "idx_orders_user_id_id", columnList = "user_id, id"),
+                @Index(name = "idx_orders_status_cancelled_at", columnList = "status, cancelled_at")
+        })
 public class Order extends AuditableEntity {
 
     @Id
@@ -30,11 +39,29 @@ public class Order extends AuditableEntity {
 
     @Column(nullable = false, precision = 12, scale = 2)
     @Builder.Default
-    private BigDecimal total = BigDecimal.ZERO;
+    private Money total = Money.ZERO;
 
+    // Baja lógica: cancelar es O(1) sentencias; la purga borra las canceladas antiguas por lotes
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'ACTIVE'")
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private OrderStatus status = OrderStatus.ACTIVE;
+
+    private Instant cancelledAt;
+
+    // Control optimista: dos updates concurrentes de la misma orden no se pisan
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // suma en céntimos (long), sin objetos intermedios por línea
     public void recalcTotal() {
-        this.total = items.stream()
-                .map(OrderItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long cents = 0;
+        for (OrderItem item : items) {
+            cents = Math.addExact(cents, item.getSubtotal().cents());
+        }
+        this.total = Money.ofCents(cents);
     }
 }
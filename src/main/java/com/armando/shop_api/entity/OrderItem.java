@@ -1,10 +1,9 @@
 package com.armando.shop_api.entity;
 
+import com.armando.shop_api.money.Money;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
-
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Builder
@@ -23,12 +22,17 @@ public class OrderItem {
     @JoinColumn(name = "product_id")
     private Product product;
 
+    // Nombre del producto al pedirlo: el archivo lo conserva aunque el producto cambie o desaparezca.
+    // Nulo en líneas anteriores a esta columna.
+    @Column(name = "product_name")
+    private String productName;
+
     @Column(nullable = false)
     private Integer quantity;
 
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal unitPrice;
+    private Money unitPrice;
 
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal subtotal;
+    private Money subtotal;
 }
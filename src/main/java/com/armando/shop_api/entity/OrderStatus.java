@@ -0,0 +1,7 @@
+package com.armando.shop_api.entity;
+
+// Cancelar marca la orden; la fila se borra más tarde (CancelledOrderPurger)
+public enum OrderStatus {
+    ACTIVE,
+    CANCELLED
+}
@@ -0,0 +1,44 @@
+package com.armando.shop_api.entity;
+
+import com.armando.shop_api.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Modelo de lectura de órdenes: una fila por orden con la respuesta ya armada (líneas en JSON).
+// GET /orders y GET /orders/{id} leen solo esta tabla (índice user_email, order_id), sin joins ni entity graph.
+// La escriben las operaciones de órdenes en su misma transacción (OrderViewStore).
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "order_views",
+        indexes = @Index(name = "idx_order_views_email_order", columnList = "user_email, order_id"))
+public class OrderView {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money total;
+
+    @Column(nullable = false)
+    private int itemCount;
+
+    // List<OrderItemResponse> serializado (nombre y precio tal como quedaron en la orden)
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String items;
+
+    private Instant createdAt;
+    private String createdBy;
+    private Instant updatedAt;
+    private String updatedBy;
+}
@@ -1,14 +1,15 @@
 package com.armando.shop_api.entity;
 
+import com.armando.shop_api.money.Money;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.Setter;
-
-import java.math.BigDecimal;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+        uniqueConstraints = @UniqueConstraint(name = "uk_products_sku", columnNames = "sku"))
 @Getter @Setter
 public class Product {
 
@@ -16,17 +17,25 @@ public class Product {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Código del producto en el sistema de origen (opcional): clave natural de la importación masiva
+    @Column(length = 64)
+    private String sku;
+
     @NotBlank
     @Column(nullable = false)
     private String name;
 
     @NotNull
-    @DecimalMin(value = "0.00")
-    @Digits(integer = 10, fraction = 2)
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal price;
+    private Money price;
 
     @Min(0)
     @Column(nullable = false)
     private int stock;
+
+    // Se incrementa en cada cambio: sirve de ETag y de control optimista
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 }
@@ -0,0 +1,41 @@
+package com.armando.shop_api.entity;
+
+import com.armando.shop_api.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+// Unidades e importe vendidos por producto y hora (UTC); base del ranking de productos.
+// Igual que sales_hourly, cada producto y hora se reparte en slots para que las órdenes concurrentes
+// de un mismo producto no esperen todas por la misma fila.
+// Se escribe con SalesRollupStore (JDBC); la entidad define la tabla.
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_sales_hourly",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_sales_hourly_hour_product_slot",
+                columnNames = {"hour_start", "product_id", "slot"}))
+public class ProductSalesHourly {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hour_start", nullable = false)
+    private Instant hourStart;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int slot;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money revenue;
+}
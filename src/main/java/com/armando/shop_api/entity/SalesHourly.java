@@ -0,0 +1,37 @@
+package com.armando.shop_api.entity;
+
+import com.armando.shop_api.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Ventas por hora (UTC). Cada hora se reparte en varias filas (slot) para que las órdenes concurrentes
+// no esperen todas por el mismo bloqueo de fila; las lecturas suman los slots.
+// Se escribe con SalesRollupStore (JDBC); la entidad define la tabla.
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "sales_hourly",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_hourly_hour_slot", columnNames = {"hour_start", "slot"}))
+public class SalesHourly {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hour_start", nullable = false)
+    private Instant hourStart;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money revenue;
+}
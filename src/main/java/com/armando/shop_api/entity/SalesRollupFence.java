@@ -0,0 +1,24 @@
+package com.armando.shop_api.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Valla de la reconstrucción de los rollups de ventas (una sola fila, id = 1).
+// Mientras dura, las órdenes con id en (rebuiltUpTo, rebuildUpTo] las cuenta la reconstrucción y no suman su delta;
+// fuera de una reconstrucción ambos valen 0. Se escribe con SalesRollupStore (JDBC).
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "sales_rollup_fence")
+public class SalesRollupFence {
+
+    @Id
+    private Integer id;
+
+    @Column(name = "rebuild_up_to", nullable = false)
+    private long rebuildUpTo;
+
+    @Column(name = "rebuilt_up_to", nullable = false)
+    private long rebuiltUpTo;
+}
@@ -2,12 +2,16 @@ package com.armando.shop_api.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
 
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        indexes = @Index(name = "idx_users_tokens_revoked_at", columnList = "tokens_revoked_at"))
 public class User {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,4 +28,12 @@ public class User {
 
     @Column(nullable = false)
     private String role; // USER / ADMIN
+
+    // Versión de los tokens emitidos (claim "ver"): "cerrar todas las sesiones" la incrementa
+    // y los tokens con una versión anterior dejan de aceptarse (TokenRevocations)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    private Instant tokensRevokedAt;
 }
@@ -0,0 +1,33 @@
+package com.armando.shop_api.entity;
+
+import com.armando.shop_api.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Resumen por usuario (nº de órdenes, gasto total, última orden).
+// Lo mantienen las escrituras de órdenes en su misma transacción con UPDATE atómicos (+/- delta),
+// así GET /orders/summary es una lectura por clave primaria.
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "user_order_summaries")
+public class UserOrderSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money totalSpent;
+
+    private Instant lastOrderAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
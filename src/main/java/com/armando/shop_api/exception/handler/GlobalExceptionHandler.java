@@ -1,15 +1,19 @@
 package com.armando.shop_api.exception.handler;
 
 import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.ConflictException;
 import com.armando.shop_api.exception.ForbiddenException;
 import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.exception.TooManyRequestsException;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.Instant;
 import java.util.HashMap;
@@ -37,6 +41,27 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.FORBIDDEN, ex.getMessage(), null);
     }
 
+    // 409 - ConflictException
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(ConflictException ex) {
+        return build(HttpStatus.CONFLICT, ex.getMessage(), null);
+    }
+
+    // 409 - conflicto de concurrencia que no se resolvió reintentando
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        return build(HttpStatus.CONFLICT, "Concurrent modification, please retry", null);
+    }
+
+    // 429 - cola llena: el cliente reintenta tras Retry-After
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequests(TooManyRequestsException ex) {
+        var res = build(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), null);
+        return ResponseEntity.status(res.getStatusCode())
+                .header("Retry-After", String.valueOf(ex.getRetryAfterSeconds()))
+                .body(res.getBody());
+    }
+
     // 400 - Validaciones DTO (@Valid)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
@@ -47,6 +72,12 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, "Validation failed", fields);
     }
 
+    // 400 - parámetro con formato inválido (?minPrice=abc, ?limit=x)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return build(HttpStatus.BAD_REQUEST, "Invalid value for parameter: " + ex.getName(), null);
+    }
+
     // fallback 500
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneric(Exception ex) {
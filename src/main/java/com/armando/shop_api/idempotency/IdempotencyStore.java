@@ -0,0 +1,245 @@
+package com.armando.shop_api.idempotency;
+
+import com.armando.shop_api.cache.LruTtlCache;
+import com.armando.shop_api.entity.IdempotencyRecord;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.ConflictException;
+import com.armando.shop_api.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Idempotency-Key: una petición repetida devuelve la respuesta ya entregada sin volver a ejecutarse.
+// Capas: LRU+TTL en memoria -> tabla idempotency_keys (sobrevive reinicios y se comparte entre instancias).
+// Peticiones simultáneas con la misma clave esperan a la primera en vez de ejecutarse en paralelo.
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long WAIT_SECONDS = 30;
+
+    private record Entry(String requestHash, Object response) {}
+
+    private record Outcome(Entry entry, boolean replayed) {}
+
+    private final LruTtlCache<String, Entry> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final Duration pendingTimeout;
+
+    public IdempotencyStore(
+            IdempotencyRecordRepository repository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${app.idempotency.ttl:24h}") Duration ttl,
+            @Value("${app.idempotency.pending-timeout:60s}") Duration pendingTimeout
+    ) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.pendingTimeout = pendingTimeout;
+        this.completed = new LruTtlCache<>(maxEntries, ttl);
+    }
+
+    // Ejecuta action una sola vez por (usuario, clave). La clave se toma antes en su propia transacción
+    // y action corre fuera de ella, con su transacción y sus reintentos; al terminar se guarda la respuesta.
+    public <T> IdempotentResult<T> execute(String user, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = user + '\n' + key;
+        String hash = hash(request);
+
+        Entry done = completed.get(id);
+        if (done != null) {
+            return replay(done, hash, type);
+        }
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            return replay(await(running), hash, type);
+        }
+
+        try {
+            Outcome outcome = runOnce(user, key, hash, type, action);
+            completed.put(id, outcome.entry());
+            mine.complete(outcome.entry());
+            return check(outcome.entry(), hash, type, outcome.replayed());
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:1h}")
+    public void purgeExpired() {
+        tx.executeWithoutResult(s -> repository.deleteExpired(Instant.now()));
+    }
+
+    private <T> Outcome runOnce(String user, String key, String hash, Class<T> type, Supplier<T> action) {
+        Instant now = Instant.now();
+        var existing = findOnPrimary(user, key);
+        if (existing.isPresent() && existing.get().getExpiresAt().isAfter(now)) {
+            return stored(existing.get(), type);
+        }
+
+        IdempotencyRecord rec;
+        try {
+            // 1) toma la clave en su propia transacción: otra instancia con la misma clave falla aquí.
+            // Caduca en ttl aunque no llegue la respuesta: una clave sin respuesta nunca vuelve a ejecutarse
+            rec = tx.execute(s -> {
+                existing.ifPresent(expired -> {
+                    repository.delete(expired);
+                    repository.flush();
+                });
+                return repository.saveAndFlush(IdempotencyRecord.builder()
+                        .userEmail(user)
+                        .idemKey(key)
+                        .requestHash(hash)
+                        .createdAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // solo una violación del INSERT de la clave es una repetición (o una petición en curso)
+            return findOnPrimary(user, key)
+                    .map(r -> stored(r, type))
+                    .orElseThrow(IdempotencyStore::inProgress);
+        }
+
+        // 2) la acción abre su propia transacción (y sus reintentos por conflicto, @RetryOnConflict);
+        // si falla, se libera la clave para que el cliente pueda reintentar con ella
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException ex) {
+            release(rec);
+            throw ex;
+        }
+
+        // 3) guarda la respuesta. Si falla (o la instancia cae antes), la orden ya está confirmada: la clave
+        // se queda sin respuesta y otra instancia responde 409 en vez de crearla otra vez; esta la repite
+        // desde memoria
+        rec.setResponseJson(write(response));
+        try {
+            tx.executeWithoutResult(s -> repository.save(rec));
+        } catch (RuntimeException ex) {
+            log.warn("Idempotency response could not be stored for key {}: {}", key, ex.getMessage());
+        }
+        return new Outcome(new Entry(hash, response), false);
+    }
+
+    private void release(IdempotencyRecord rec) {
+        try {
+            tx.executeWithoutResult(s -> repository.delete(rec));
+        } catch (RuntimeException ex) {
+            // queda sin respuesta hasta ttl: mientras, la clave responde 409
+            log.warn("Idempotency key could not be released: {}", ex.getMessage());
+        }
+    }
+
+    // Con réplica de lectura, la búsqueda propia del repositorio (readOnly) iría a la réplica y no
+    // vería una clave recién confirmada por otra instancia: se lee en una transacción de escritura
+    private Optional<IdempotencyRecord> findOnPrimary(String user, String key) {
+        return tx.execute(s -> repository.findByUserEmailAndIdemKey(user, key));
+    }
+
+    // la clave ya estaba en BD: se compara con el hash guardado, no con el de esta petición.
+    // Sin respuesta: otra instancia la está ejecutando o, pasado pending-timeout, no se sabe si se aplicó.
+    private <T> Outcome stored(IdempotencyRecord rec, Class<T> type) {
+        if (rec.getResponseJson() == null) {
+            Instant claimed = rec.getCreatedAt();
+            throw claimed != null && claimed.plus(pendingTimeout).isAfter(Instant.now())
+                    ? inProgress()
+                    : new ConflictException("Outcome of the request with this Idempotency-Key is unknown; "
+                            + "check your orders before retrying with a new key");
+        }
+        return new Outcome(new Entry(rec.getRequestHash(), read(rec.getResponseJson(), type)), true);
+    }
+
+    private static Entry await(CompletableFuture<Entry> running) {
+        try {
+            return running.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            // la primera petición falló: las que esperaban reciben el mismo error
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw inProgress();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private static ConflictException inProgress() {
+        return new ConflictException("A request with this Idempotency-Key is in progress");
+    }
+
+    private static <T> IdempotentResult<T> replay(Entry entry, String hash, Class<T> type) {
+        return check(entry, hash, type, true);
+    }
+
+    private static <T> IdempotentResult<T> check(Entry entry, String hash, Class<T> type, boolean replayed) {
+        if (!entry.requestHash().equals(hash)) {
+            throw new BadRequestException("Idempotency-Key was already used with a different request");
+        }
+        return new IdempotentResult<>(type.cast(entry.response()), replayed);
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.armando.shop_api.idempotency;
+
+// replayed = true cuando la respuesta es la guardada de una petición anterior con la misma clave
+public record IdempotentResult<T>(
+        T response,
+        boolean replayed
+) {}
@@ -0,0 +1,214 @@
+package com.armando.shop_api.intake;
+
+import com.armando.shop_api.cache.LruTtlCache;
+import com.armando.shop_api.dto.OrderBatchResult;
+import com.armando.shop_api.dto.OrderCreateRequest;
+import com.armando.shop_api.dto.OrderTicketResponse;
+import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.exception.TooManyRequestsException;
+import com.armando.shop_api.service.OrderBatchService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Alta asíncrona de órdenes: POST /orders encola y responde 202; un único hilo escritor vacía la cola
+// y confirma varias órdenes por transacción (group commit) reutilizando el alta masiva.
+// La cola es acotada: llena -> 429, así el pool de conexiones nunca se satura por picos de órdenes.
+// Cola y tickets viven solo en la memoria de esta instancia: el estado se consulta en la misma instancia
+// (sesión fija en el balanceador) y una caída pierde lo encolado sin escribir. Lo ya confirmado está en orders.
+@Component
+public class OrderIntakeQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakeQueue.class);
+
+    private record Job(String trackingId, String userEmail, OrderCreateRequest request) {}
+
+    private static final class Ticket {
+        final String userEmail;
+        final CompletableFuture<OrderTicketResponse> outcome = new CompletableFuture<>();
+
+        Ticket(String userEmail) {
+            this.userEmail = userEmail;
+        }
+    }
+
+    private final OrderBatchService batchService;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final BlockingQueue<Job> queue;
+    private final LruTtlCache<String, Ticket> tickets;
+
+    // submit comprueba running y encola bajo el bloqueo de lectura; stop lo cierra con el de escritura:
+    // después de stop ninguna orden puede entrar en la cola
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderIntakeQueue(
+            OrderBatchService batchService,
+            TransactionTemplate tx,
+            @Value("${app.orders.async.enabled:false}") boolean enabled,
+            @Value("${app.orders.async.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.orders.async.max-batch:100}") int maxBatch,
+            @Value("${app.orders.async.result-ttl:10m}") Duration resultTtl
+    ) {
+        this.batchService = batchService;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // holgura sobre la cola para que un ticket pendiente no se expulse antes de resolverse
+        this.tickets = new LruTtlCache<>(Math.max(queueCapacity * 10, 10_000), resultTtl);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        writer = Thread.ofPlatform().name("order-intake-writer").daemon(true).start(this::drain);
+    }
+
+    // Al parar: no se aceptan más órdenes y se escribe lo que quede en la cola.
+    // Si el escritor no termina a tiempo, lo que siga en la cola se rechaza (nunca queda PENDING).
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        List<Job> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(job -> complete(job, new OrderTicketResponse(job.trackingId(), "REJECTED", null, null,
+                "Order intake stopped before the order was written")));
+    }
+
+    public OrderTicketResponse submit(OrderCreateRequest request, String userEmail) {
+        lifecycle.readLock().lock();
+        try {
+            if (!running) {
+                throw new TooManyRequestsException("Order intake is not accepting orders", 1);
+            }
+            String id = UUID.randomUUID().toString();
+            Ticket ticket = new Ticket(userEmail);
+            tickets.put(id, ticket);
+            if (!queue.offer(new Job(id, userEmail, request))) {
+                tickets.invalidate(id);
+                throw new TooManyRequestsException("Order queue is full, please retry", 1);
+            }
+            return pending(id);
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+    }
+
+    // Estado actual; con wait > 0 espera (sin bloquear hilos del servidor) a que se resuelva
+    public CompletableFuture<OrderTicketResponse> status(String trackingId, String userEmail, Duration wait) {
+        Ticket ticket = tickets.get(trackingId);
+        if (ticket == null || !ticket.userEmail.equals(userEmail)) {
+            throw new NotFoundException("Order ticket not found");
+        }
+        if (wait.isZero() || ticket.outcome.isDone()) {
+            return CompletableFuture.completedFuture(ticket.outcome.getNow(pending(trackingId)));
+        }
+        return ticket.outcome.copy().completeOnTimeout(pending(trackingId), wait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "enabled", enabled,
+                "queued", queue.size(),
+                "remainingCapacity", queue.remainingCapacity());
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Job first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                List<Job> batch = new ArrayList<>(maxBatch);
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake writer error", e);
+            }
+        }
+    }
+
+    // Una transacción para todo el lote (un alta masiva por usuario dentro de ella).
+    // Si falla entera, cada orden se reintenta sola para que una mala no arrastre al resto.
+    private void write(List<Job> batch) {
+        Map<String, List<Job>> byUser = new LinkedHashMap<>();
+        batch.forEach(job -> byUser.computeIfAbsent(job.userEmail(), u -> new ArrayList<>()).add(job));
+
+        Map<Job, OrderBatchResult> results;
+        try {
+            results = tx.execute(s -> {
+                Map<Job, OrderBatchResult> out = new LinkedHashMap<>();
+                byUser.forEach((user, jobs) -> {
+                    var res = batchService.createBatch(jobs.stream().map(Job::request).toList(), user);
+                    for (int i = 0; i < jobs.size(); i++) {
+                        out.put(jobs.get(i), res.results().get(i));
+                    }
+                });
+                return out;
+            });
+        } catch (RuntimeException ex) {
+            if (batch.size() > 1) {
+                batch.forEach(job -> write(List.of(job)));
+            } else {
+                Job job = batch.get(0);
+                log.warn("Queued order {} failed", job.trackingId(), ex);
+                complete(job, new OrderTicketResponse(job.trackingId(), "REJECTED", null, null, ex.getMessage()));
+            }
+            return;
+        }
+
+        results.forEach((job, r) -> complete(job, r.error() == null
+                ? new OrderTicketResponse(job.trackingId(), "CREATED", r.orderId(), r.total(), null)
+                : new OrderTicketResponse(job.trackingId(), "REJECTED", null, null, r.error())));
+    }
+
+    private void complete(Job job, OrderTicketResponse outcome) {
+        Ticket ticket = tickets.get(job.trackingId());
+        if (ticket != null) {
+            ticket.outcome.complete(outcome);
+        }
+    }
+
+    private static OrderTicketResponse pending(String trackingId) {
+        return new OrderTicketResponse(trackingId, "PENDING", null, null, null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.armando.shop_api.inventory;
+
+public record HotSkuStats(
+        Long productId,
+        int remaining,
+        long allocated,
+        long reservedUnits,
+        long refills
+) {}
@@ -0,0 +1,364 @@
+package com.armando.shop_api.inventory;
+
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.entity.HotStockAllocation;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.repository.HotStockAllocationRepository;
+import com.armando.shop_api.repository.OrderItemRepository;
+import com.armando.shop_api.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Ledger de stock en memoria para SKUs calientes (flash sales).
+//
+// Cada producto caliente tiene un contador atómico propio: reservar es un CAS, sin tocar la fila
+// de products. Un hilo de fondo alimenta el contador retirando stock de products.stock por bloques
+// (chunk-size) con un único UPDATE condicional, así miles de reservas se escriben en BD como unas pocas.
+// Las peticiones nunca esperan a la BD por el ledger: si el contador está vacío se usa el UPDATE
+// condicional de siempre mientras llega la recarga.
+//
+// Al desactivar (o al parar la app) lo no vendido vuelve a products.stock. Si la instancia muere,
+// al arrancar se reconcilia: no vendido = asignado - (unidades en order_items desde la activación
+// - las que se reservaron por el UPDATE condicional). Esas últimas se anotan en la asignación dentro
+// de la transacción del pedido: solo en el camino lento, que ya escribe la fila de products.
+// La reconciliación asume que lo vendido en la ventana caliente son líneas nuevas; ediciones de
+// pedidos anteriores a la activación no se reflejan.
+@Component
+public class InventoryLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+
+    // valor del contador de un slot cerrado: ninguna reserva cabe y las devoluciones van a BD
+    private static final int CLOSED = Integer.MIN_VALUE / 2;
+
+    private static final class Slot {
+        final Long productId;
+        final Long allocationId;
+        final AtomicInteger remaining = new AtomicInteger();
+        final AtomicBoolean refilling = new AtomicBoolean();
+        final AtomicLong allocated = new AtomicLong();
+        final LongAdder reservedUnits = new LongAdder();
+        final LongAdder refills = new LongAdder();
+
+        Slot(Long productId, Long allocationId) {
+            this.productId = productId;
+            this.allocationId = allocationId;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    // todo el trabajo de BD del ledger va por este hilo: nunca se pide una segunda conexión
+    // desde dentro de la transacción de un pedido
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hot-inventory-ledger");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ProductRepository productRepository;
+    private final HotStockAllocationRepository allocationRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductCache productCache;
+    private final TransactionTemplate tx;
+
+    private final boolean enabled;
+    private final int chunkSize;
+    private final String owner;
+    private final String configuredProducts;
+
+    public InventoryLedger(
+            ProductRepository productRepository,
+            HotStockAllocationRepository allocationRepository,
+            OrderItemRepository orderItemRepository,
+            ProductCache productCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.inventory.hot-ledger.enabled:false}") boolean enabled,
+            @Value("${app.inventory.hot-ledger.chunk-size:100}") int chunkSize,
+            @Value("${app.inventory.hot-ledger.owner:${HOSTNAME:local}}") String owner,
+            @Value("${app.inventory.hot-ledger.products:}") String configuredProducts
+    ) {
+        this.productRepository = productRepository;
+        this.allocationRepository = allocationRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productCache = productCache;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.owner = owner;
+        this.configuredProducts = configuredProducts;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+
+        // asignaciones que dejó una ejecución anterior de esta instancia sin cerrar
+        for (HotStockAllocation a : allocationRepository.findByOwner(owner)) {
+            tx.executeWithoutResult(s -> {
+                long sold = orderItemRepository.sumQuantitySince(a.getProductId(), a.getSinceItemId())
+                        - a.getFallbackReserved();
+                long unused = a.getAllocated() - sold;
+                if (unused > 0) {
+                    productRepository.incrementStock(a.getProductId(), Math.toIntExact(unused));
+                }
+                allocationRepository.delete(a);
+                log.info("Reconciled hot stock for product {}: allocated={} sold={} returned={}",
+                        a.getProductId(), a.getAllocated(), sold, Math.max(unused, 0));
+            });
+            productCache.evict(a.getProductId());
+        }
+
+        Arrays.stream(configuredProducts.split(","))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .map(Long::valueOf)
+                .forEach(this::activate);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (Long productId : new ArrayList<>(slots.keySet())) {
+            deactivate(productId);
+        }
+        worker.shutdown();
+        if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Hot inventory ledger stopped with pending stock returns");
+        }
+    }
+
+    public void activate(Long productId) {
+        requireEnabled();
+        if (!productRepository.existsById(productId)) {
+            throw new NotFoundException("Product not found");
+        }
+        Slot slot = slots.computeIfAbsent(productId, id -> {
+            HotStockAllocation a = tx.execute(s -> allocationRepository.save(HotStockAllocation.builder()
+                    .owner(owner)
+                    .productId(id)
+                    .allocated(0)
+                    .sinceItemId(orderItemRepository.findMaxId())
+                    .createdAt(Instant.now())
+                    .build()));
+            log.info("Hot inventory ledger enabled for product {}", id);
+            return new Slot(id, a.getId());
+        });
+        requestRefill(slot);
+    }
+
+    public void deactivate(Long productId) {
+        requireEnabled();
+        Slot slot = slots.remove(productId);
+        if (slot == null) {
+            throw new NotFoundException("Product is not in the hot ledger");
+        }
+
+        // el monitor del slot excluye una recarga en curso
+        int unused;
+        synchronized (slot) {
+            unused = slot.remaining.getAndSet(CLOSED);
+        }
+        tx.executeWithoutResult(s -> {
+            if (unused > 0) {
+                productRepository.incrementStock(productId, unused);
+            }
+            allocationRepository.deleteById(slot.allocationId);
+        });
+        productCache.evict(productId);
+        log.info("Hot inventory ledger disabled for product {} (returned {})", productId, Math.max(unused, 0));
+    }
+
+    // true si la reserva sale del ledger; false = el llamador descuenta en BD como siempre
+    public boolean tryReserve(Long productId, int qty) {
+        if (!enabled) return false;
+        Slot slot = slots.get(productId);
+        if (slot == null) return false;
+
+        boolean taken = tryTake(slot, qty);
+        int left = slot.remaining.get();
+        if (left >= 0 && left < Math.max(chunkSize / 2, qty)) {
+            requestRefill(slot);
+        }
+        if (!taken) return false;
+
+        slot.reservedUnits.add(qty);
+        // si el pedido no llega a confirmarse, las unidades vuelven al ledger
+        onRollback(() -> giveBack(slot, qty));
+        return true;
+    }
+
+    // El llamador reservó qty con el UPDATE condicional (tryReserve devolvió false). Si el producto es
+    // caliente se anota en la asignación, en la misma transacción, para que la reconciliación tras una
+    // caída no cuente esas unidades como salidas del ledger.
+    public void reservedFromDatabase(Long productId, int qty) {
+        if (!enabled) return;
+        Slot slot = slots.get(productId);
+        if (slot == null) return;
+
+        allocationRepository.addFallbackReserved(slot.allocationId, qty);
+    }
+
+    // true si el producto es caliente y la devolución queda a cargo del ledger
+    public boolean release(Long productId, int qty) {
+        if (!enabled) return false;
+        Slot slot = slots.get(productId);
+        if (slot == null) return false;
+
+        // solo tras el commit: devolver antes permitiría vender unidades de un borrado que luego se revierte
+        afterCommit(() -> giveBack(slot, qty));
+        return true;
+    }
+
+    // Stock que debe quedar en products.stock para que BD + ledger sumen `total` (escrituras de stock
+    // absoluto, como la importación). Si el ledger tiene más de `total`, el exceso sale del contador y
+    // de la asignación; vuelve al contador si la transacción se revierte.
+    public int databaseStockFor(Long productId, int total) {
+        if (!enabled) return total;
+        Slot slot = slots.get(productId);
+        if (slot == null) return total;
+
+        while (true) {
+            int current = slot.remaining.get();
+            if (current < 0) return total; // cerrado: lo no vendido ya volvió a products.stock
+            if (current <= total) return total - current;
+
+            int excess = current - total;
+            if (slot.remaining.compareAndSet(current, total)) {
+                allocationRepository.addAllocated(slot.allocationId, -excess);
+                slot.allocated.addAndGet(-excess);
+                onRollback(() -> {
+                    slot.allocated.addAndGet(excess);
+                    giveBack(slot, excess);
+                });
+                return 0;
+            }
+        }
+    }
+
+    public List<HotSkuStats> stats() {
+        return slots.values().stream()
+                .map(s -> new HotSkuStats(
+                        s.productId,
+                        Math.max(s.remaining.get(), 0),
+                        s.allocated.get(),
+                        s.reservedUnits.sum(),
+                        s.refills.sum()))
+                .toList();
+    }
+
+    private static boolean tryTake(Slot slot, int qty) {
+        while (true) {
+            int current = slot.remaining.get();
+            if (current < qty) return false;
+            if (slot.remaining.compareAndSet(current, current - qty)) return true;
+        }
+    }
+
+    private void giveBack(Slot slot, int qty) {
+        while (true) {
+            int current = slot.remaining.get();
+            if (current < 0) {
+                // slot cerrado entretanto: directo a products.stock
+                worker.execute(() -> {
+                    tx.executeWithoutResult(s -> productRepository.incrementStock(slot.productId, qty));
+                    productCache.evict(slot.productId);
+                });
+                return;
+            }
+            if (slot.remaining.compareAndSet(current, current + qty)) return;
+        }
+    }
+
+    private void requestRefill(Slot slot) {
+        if (!slot.refilling.compareAndSet(false, true)) return;
+        worker.execute(() -> {
+            try {
+                refill(slot);
+            } catch (RuntimeException ex) {
+                log.warn("Hot stock refill failed for product {}", slot.productId, ex);
+            } finally {
+                slot.refilling.set(false);
+            }
+        });
+    }
+
+    // Retira un bloque de products.stock (o lo que quede si es menos)
+    private void refill(Slot slot) {
+        int granted;
+        synchronized (slot) {
+            if (slot.remaining.get() < 0) return;
+
+            Integer n = tx.execute(s -> {
+                int take = chunkSize;
+                if (productRepository.decrementStock(slot.productId, take) == 0) {
+                    take = productRepository.findStockById(slot.productId).orElse(0);
+                    if (take <= 0 || productRepository.decrementStock(slot.productId, take) == 0) return 0;
+                }
+                allocationRepository.addAllocated(slot.allocationId, take);
+                return take;
+            });
+            granted = n == null ? 0 : n;
+            if (granted > 0) {
+                slot.remaining.addAndGet(granted);
+            }
+        }
+
+        if (granted > 0) {
+            slot.refills.increment();
+            slot.allocated.addAndGet(granted);
+            productCache.evict(slot.productId);
+        }
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new BadRequestException("Hot inventory ledger is disabled");
+        }
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) action.run();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
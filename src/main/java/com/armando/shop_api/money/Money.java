@@ -0,0 +1,60 @@
+package com.armando.shop_api.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+
+// Importe exacto en céntimos sobre un long: sumar y multiplicar no crea BigDecimal/BigInteger.
+// Las operaciones lanzan ArithmeticException si desbordan, nunca redondean.
+// En BD sigue siendo DECIMAL(12,2) (MoneyConverter) y en JSON un número con 2 decimales.
+@JsonSerialize(using = MoneyJson.Serializer.class)
+@JsonDeserialize(using = MoneyJson.Deserializer.class)
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    // Exacto: más de 2 decimales (o fuera de rango) es un error, no se redondea
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofCents(amount.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid money amount: " + amount.toPlainString());
+        }
+    }
+
+    // Usado también por Spring para convertir parámetros (?minPrice=10.50)
+    public static Money valueOf(String amount) {
+        return of(new BigDecimal(amount.trim()));
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    // "2500.00", "-0.05"
+    @Override
+    public String toString() {
+        long abs = Math.abs(cents);
+        long units = abs / 100;
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + units + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,39 @@
+package com.armando.shop_api.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+// JSON de Money: número con 2 decimales (2500.00), igual que cuando era BigDecimal
+public final class MoneyJson {
+
+    private MoneyJson() {}
+
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.toString());
+        }
+    }
+
+    // Acepta número o texto ("19.99")
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            try {
+                if (p.currentToken() == JsonToken.VALUE_STRING) {
+                    return Money.valueOf(p.getText());
+                }
+                return Money.of(p.getDecimalValue());
+            } catch (IllegalArgumentException e) {
+                return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.armando.shop_api.orderview;
+
+import com.armando.shop_api.dto.OrderItemResponse;
+import com.armando.shop_api.dto.OrderResponse;
+import com.armando.shop_api.entity.Order;
+import com.armando.shop_api.entity.OrderStatus;
+import com.armando.shop_api.entity.OrderView;
+import com.armando.shop_api.repository.OrderRepository;
+import com.armando.shop_api.repository.OrderViewRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+// Escritura del modelo de lectura order_views: guarda la OrderResponse ya armada, con las líneas en JSON.
+// Se llama dentro de la transacción que modifica la orden; la fila se escribe por JDBC (sin SELECT previo).
+@Component
+public class OrderViewStore {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderViewStore.class);
+
+    private static final int BACKFILL_CHUNK = 1000;
+
+    private static final String INSERT = """
+            INSERT INTO order_views (order_id, user_id, user_email, total, item_count, items,
+                                     created_at, created_by, updated_at, updated_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // alta inicial: si la orden ya tiene vista (la escribió su propia transacción entretanto, u otra
+    // instancia que también está rellenando) se deja la que hay
+    private static final String INSERT_IF_ABSENT = INSERT + """
+            ON DUPLICATE KEY UPDATE order_id = order_id
+            """;
+
+    private static final String UPDATE = """
+            UPDATE order_views
+               SET total = ?, item_count = ?, items = ?, updated_at = ?, updated_by = ?
+             WHERE order_id = ?
+            """;
+
+    private static final TypeReference<List<OrderItemResponse>> ITEMS = new TypeReference<>() {};
+
+    // Hibernate guarda los Instant en UTC: las filas escritas por JDBC deben coincidir
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final OrderRepository orderRepository;
+    private final OrderViewRepository viewRepository;
+    private final TransactionTemplate tx;
+
+    // true cuando toda orden activa tiene vista; hasta entonces los listados leen las entidades
+    private volatile boolean backfilled;
+
+    public OrderViewStore(
+            JdbcTemplate jdbc,
+            ObjectMapper objectMapper,
+            OrderRepository orderRepository,
+            OrderViewRepository viewRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+        this.orderRepository = orderRepository;
+        this.viewRepository = viewRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public void insert(OrderResponse order) {
+        insertAll(List.of(order));
+    }
+
+    public void insertAll(List<OrderResponse> orders) {
+        write(INSERT, orders);
+    }
+
+    private void write(String sql, List<OrderResponse> orders) {
+        jdbc.batchUpdate(sql, orders, orders.size(), (ps, o) -> {
+            ps.setLong(1, o.id());
+            ps.setLong(2, o.userId());
+            ps.setString(3, o.userEmail());
+            ps.setBigDecimal(4, o.total().toBigDecimal());
+            ps.setInt(5, o.items().size());
+            ps.setString(6, json(o.items()));
+            setInstant(ps, 7, o.createdAt());
+            ps.setString(8, o.createdBy());
+            setInstant(ps, 9, o.updatedAt());
+            ps.setString(10, o.updatedBy());
+        });
+    }
+
+    // Órdenes anteriores a la vista no tienen fila: se crea
+    public void upsert(OrderResponse o) {
+        int updated = jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE);
+            ps.setBigDecimal(1, o.total().toBigDecimal());
+            ps.setInt(2, o.items().size());
+            ps.setString(3, json(o.items()));
+            setInstant(ps, 4, o.updatedAt());
+            ps.setString(5, o.updatedBy());
+            ps.setLong(6, o.id());
+            return ps;
+        });
+        if (updated == 0) {
+            insert(o);
+        }
+    }
+
+    public void delete(Long orderId) {
+        jdbc.update("DELETE FROM order_views WHERE order_id = ?", orderId);
+    }
+
+    public OrderResponse read(OrderView v) {
+        List<OrderItemResponse> items;
+        try {
+            items = objectMapper.readValue(v.getItems(), ITEMS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt order view " + v.getOrderId(), e);
+        }
+        return new OrderResponse(v.getOrderId(), v.getUserId(), v.getUserEmail(), v.getTotal(), items,
+                v.getCreatedAt(), v.getCreatedBy(), v.getUpdatedAt(), v.getUpdatedBy());
+    }
+
+    // Respuesta a partir de la entidad (escrituras y respaldo de lecturas)
+    public static OrderResponse toResponse(Order o) {
+        var items = o.getItems().stream()
+                .map(i -> new OrderItemResponse(
+                        i.getProduct().getId(),
+                        i.getProduct().getName(),
+                        i.getQuantity(),
+                        i.getUnitPrice(),
+                        i.getSubtotal()
+                ))
+                .toList();
+
+        return new OrderResponse(
+                o.getId(),
+                o.getUser().getId(),
+                o.getUser().getEmail(),
+                o.getTotal(),
+                items,
+                o.getCreatedAt(),
+                o.getCreatedBy(),
+                o.getUpdatedAt(),
+                o.getUpdatedBy()
+        );
+    }
+
+    public boolean backfilled() {
+        return backfilled;
+    }
+
+    // Órdenes creadas antes de existir order_views: se generan una vez, por tramos de id.
+    // Nunca impide el arranque: un tramo que falla se registra y se reintenta en el siguiente arranque
+    // (mientras, esta instancia lee las órdenes desde las entidades).
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long maxId;
+        try {
+            if (viewRepository.count() >= orderRepository.countByStatus(OrderStatus.ACTIVE)) {
+                backfilled = true;
+                return;
+            }
+            maxId = orderRepository.findMaxId();
+        } catch (RuntimeException ex) {
+            log.warn("Order view backfill skipped: {}", ex.getMessage());
+            return;
+        }
+
+        int created = 0;
+        int failedChunks = 0;
+        for (long after = 0; after < maxId; after += BACKFILL_CHUNK) {
+            long from = after;
+            try {
+                created += tx.execute(s -> {
+                    List<Long> ids = viewRepository.findOrderIdsWithoutView(from, from + BACKFILL_CHUNK);
+                    if (ids.isEmpty()) return 0;
+                    write(INSERT_IF_ABSENT,
+                            orderRepository.findDetailedByIdIn(ids).stream().map(OrderViewStore::toResponse).toList());
+                    return ids.size();
+                });
+            } catch (RuntimeException ex) {
+                failedChunks++;
+                log.warn("Order view backfill failed for orders ({}, {}]", from, from + BACKFILL_CHUNK, ex);
+            }
+        }
+        backfilled = failedChunks == 0;
+        if (created > 0 || failedChunks > 0) {
+            log.info("Order views created for {} existing orders ({} chunks failed)", created, failedChunks);
+        }
+    }
+
+    private String json(List<OrderItemResponse> items) {
+        try {
+            return objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void setInstant(PreparedStatement ps, int index, Instant value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.from(value), UTC);
+        }
+    }
+}
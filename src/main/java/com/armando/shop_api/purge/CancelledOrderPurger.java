@@ -0,0 +1,73 @@
+package com.armando.shop_api.purge;
+
+import com.armando.shop_api.repository.OrderItemRepository;
+import com.armando.shop_api.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Borrado físico de órdenes canceladas hace más de retention, en lotes pequeños:
+// cada lote es una transacción corta (un SELECT de ids y dos DELETE ... IN), sin bloquear la tabla.
+// Cada ejecución procesa como mucho max-batches; lo que quede lo recoge la siguiente.
+@Component
+public class CancelledOrderPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(CancelledOrderPurger.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate tx;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public CancelledOrderPurger(
+            OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.purge.retention:30d}") Duration retention,
+            @Value("${app.orders.purge.batch-size:500}") int batchSize,
+            @Value("${app.orders.purge.max-batches:100}") int maxBatches
+    ) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.purge.interval:10m}")
+    public int purge() {
+        Instant cutoff = Instant.now().minus(retention);
+        int total = 0;
+        int deleted = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            deleted = tx.execute(s -> purgeBatch(cutoff));
+            total += deleted;
+            if (deleted < batchSize) break;
+        }
+
+        if (total > 0) {
+            log.info("Purged {} cancelled orders (cancelled before {}){}", total, cutoff,
+                    deleted == batchSize ? ", more pending for the next run" : "");
+        }
+        return total;
+    }
+
+    private int purgeBatch(Instant cutoff) {
+        List<Long> ids = orderRepository.findPurgeable(cutoff, Limit.of(batchSize));
+        if (ids.isEmpty()) return 0;
+        orderItemRepository.deleteByOrderIdIn(ids);
+        return orderRepository.deleteByIdIn(ids);
+    }
+}
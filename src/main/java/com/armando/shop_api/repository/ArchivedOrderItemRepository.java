@@ -0,0 +1,30 @@
+package com.armando.shop_api.repository;
+
+import com.armando.shop_api.entity.ArchivedOrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedOrderItemRepository extends JpaRepository<ArchivedOrderItem, Long> {
+
+    // Líneas de varias órdenes en una consulta (índice order_id)
+    List<ArchivedOrderItem> findByOrderIdInOrderById(Collection<Long> orderIds);
+
+    // Copia las líneas del lote tal como se pidieron (nombre guardado en la línea) con el created_at de su orden.
+    // Solo las líneas antiguas, sin nombre guardado, toman el actual del producto; LEFT JOIN: ninguna se pierde.
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_items_archive (id, order_id, product_id, product_name, quantity, unit_price, subtotal, created_at)
+            SELECT i.id, i.order_id, i.product_id, COALESCE(i.product_name, p.name, ''),
+                   i.quantity, i.unit_price, i.subtotal, o.created_at
+              FROM order_items i
+              JOIN orders o ON o.id = i.order_id
+              LEFT JOIN products p ON p.id = i.product_id
+             WHERE i.order_id IN (:orderIds)
+            """, nativeQuery = true)
+    int copyFromOrderItems(@Param("orderIds") Collection<Long> orderIds);
+}
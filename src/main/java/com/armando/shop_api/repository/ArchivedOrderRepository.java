@@ -0,0 +1,43 @@
+package com.armando.shop_api.repository;
+
+import com.armando.shop_api.entity.ArchivedOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Query("""
+            select a from ArchivedOrder a
+            where a.id = :id and a.userId = (select u.id from User u where u.email = :email)
+            """)
+    Optional<ArchivedOrder> findMine(@Param("id") Long id, @Param("email") String email);
+
+    // Keyset descendente sobre (user_id, id)
+    @Query("""
+            select a from ArchivedOrder a
+            where a.userId = (select u.id from User u where u.email = :email) and a.id < :before
+            order by a.id desc
+            """)
+    List<ArchivedOrder> findPage(@Param("email") String email, @Param("before") long before, Limit limit);
+
+    // Copia las órdenes del lote tal cual (mismo id y auditoría)
+    @Modifying
+    @Query(value = """
+            INSERT INTO orders_archive (id, user_id, total, created_at, created_by, updated_at, updated_by, archived_at)
+            SELECT o.id, o.user_id, o.total, o.created_at, o.created_by, o.updated_at, o.updated_by, :now
+              FROM orders o
+             WHERE o.id IN (:ids)
+            """, nativeQuery = true)
+    int copyFromOrders(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Query("select coalesce(max(a.id), 0) from ArchivedOrder a")
+    long findMaxId();
+}
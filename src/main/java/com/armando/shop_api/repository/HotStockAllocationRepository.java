@@ -0,0 +1,22 @@
+package com.armando.shop_api.repository;
+
+import com.armando.shop_api.entity.HotStockAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface HotStockAllocationRepository extends JpaRepository<HotStockAllocation, Long> {
+
+    List<HotStockAllocation> findByOwner(String owner);
+
+    @Modifying
+    @Query("update HotStockAllocation a set a.allocated = a.allocated + :qty where a.id = :id")
+    int addAllocated(@Param("id") Long id, @Param("qty") long qty);
+
+    @Modifying
+    @Query("update HotStockAllocation a set a.fallbackReserved = a.fallbackReserved + :qty where a.id = :id")
+    int addFallbackReserved(@Param("id") Long id, @Param("qty") long qty);
+}
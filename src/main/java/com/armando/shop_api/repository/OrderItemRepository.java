@@ -1,6 +1,35 @@
 package com.armando.shop_api.repository;
 
+import com.armando.shop_api.dto.OrderLineRow;
 import com.armando.shop_api.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {}
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    @Query("select coalesce(max(i.id), 0) from OrderItem i")
+    long findMaxId();
+
+    // Unidades vendidas de un producto en líneas posteriores a sinceItemId.
+    // Incluye órdenes canceladas: su stock vuelve a products.stock, no a la asignación del ledger.
+    @Query("""
+            select coalesce(sum(i.quantity), 0) from OrderItem i
+            where i.product.id = :productId and i.id > :sinceItemId
+            """)
+    long sumQuantitySince(@Param("productId") Long productId, @Param("sinceItemId") long sinceItemId);
+
+    @Query("""
+            select new com.armando.shop_api.dto.OrderLineRow(i.product.id, i.quantity, i.subtotal)
+            from OrderItem i where i.order.id = :orderId
+            """)
+    List<OrderLineRow> findLines(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("delete from OrderItem i where i.order.id in :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
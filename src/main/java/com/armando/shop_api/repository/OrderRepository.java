@@ -1,14 +1,111 @@
 package com.armando.shop_api.repository;
 
+import com.armando.shop_api.dto.OrderSummaryResponse;
 import com.armando.shop_api.entity.Order;
+import com.armando.shop_api.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// Las lecturas que se mapean a OrderResponse traen user, items y productos en la misma consulta
+// (sin N+1 por orden ni por línea). Los listados de la API leen order_views (OrderViewRepository).
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    List<Order> findByUserEmailOrderByIdDesc(String email);
+    // Respaldo de GET /orders mientras faltan vistas: keyset descendente sobre (user_id, id).
+    // Solo ids: el fetch de colecciones no admite LIMIT en SQL.
+    @Query("""
+            select o.id from Order o
+            where o.user.email = :email and o.id < :before
+              and o.status = com.armando.shop_api.entity.OrderStatus.ACTIVE
+            order by o.id desc
+            """)
+    List<Long> findPageIds(@Param("email") String email, @Param("before") long before, Limit limit);
 
-    Optional<Order> findByIdAndUserEmail(Long id, String email);
+    @Query("""
+            select new com.armando.shop_api.dto.OrderSummaryResponse(o.id, o.total, size(o.items), o.createdAt, o.updatedAt)
+            from Order o
+            where o.user.email = :email and o.id < :before
+              and o.status = com.armando.shop_api.entity.OrderStatus.ACTIVE
+            order by o.id desc
+            """)
+    List<OrderSummaryResponse> findSummaryPage(@Param("email") String email, @Param("before") long before, Limit limit);
+
+    // Alta de vistas (OrderViewStore.backfill) y respaldo de GET /orders
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    @Query("select o from Order o where o.id in :ids order by o.id desc")
+    List<Order> findDetailedByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Respaldo de GET /orders/{id} si la orden aún no tiene vista
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    @Query("""
+            select o from Order o
+            where o.id = :id and o.user.email = :email
+              and o.status = com.armando.shop_api.entity.OrderStatus.ACTIVE
+            """)
+    Optional<Order> findByIdAndUserEmail(@Param("id") Long id, @Param("email") String email);
+
+    // Para update: la orden con sus líneas y productos ya cargados
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    @Query("select o from Order o where o.id = :id and o.status = com.armando.shop_api.entity.OrderStatus.ACTIVE")
+    Optional<Order> findDetailedById(@Param("id") Long id);
+
+    // Para cancelar: solo la orden y su usuario, sin líneas
+    @EntityGraph(attributePaths = {"user"})
+    @Query("select o from Order o where o.id = :id and o.status = com.armando.shop_api.entity.OrderStatus.ACTIVE")
+    Optional<Order> findActiveById(@Param("id") Long id);
+
+    // Condicional: de dos cancelaciones concurrentes solo una ve 1 fila (y devuelve el stock)
+    @Modifying
+    @Query("""
+            update Order o
+            set o.status = com.armando.shop_api.entity.OrderStatus.CANCELLED, o.cancelledAt = :now,
+                o.updatedAt = :now, o.updatedBy = :email, o.version = o.version + 1
+            where o.id = :id and o.status = com.armando.shop_api.entity.OrderStatus.ACTIVE
+            """)
+    int cancel(@Param("id") Long id, @Param("email") String email, @Param("now") Instant now);
+
+    long countByStatus(OrderStatus status);
+
+    // Canceladas antes de cutoff (índice status, cancelled_at). Se excluyen las que tienen líneas dentro
+    // de una asignación activa del ledger de SKUs calientes: ese stock se calcula desde order_items.
+    @Query("""
+            select o.id from Order o
+            where o.status = com.armando.shop_api.entity.OrderStatus.CANCELLED and o.cancelledAt < :cutoff
+              and not exists (
+                  select 1 from OrderItem i, HotStockAllocation a
+                  where i.order = o and a.productId = i.product.id and i.id > a.sinceItemId)
+            order by o.cancelledAt
+            """)
+    List<Long> findPurgeable(@Param("cutoff") Instant cutoff, Limit limit);
+
+    // Activas creadas antes de cutoff, por id ascendente (las más antiguas están al principio de la PK).
+    // FOR UPDATE: un update concurrente espera a que el lote se archive y después recibe 404.
+    // Mismo filtro que findPurgeable sobre las asignaciones activas del ledger.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select o.id from Order o
+            where o.status = com.armando.shop_api.entity.OrderStatus.ACTIVE and o.createdAt < :cutoff
+              and not exists (
+                  select 1 from OrderItem i, HotStockAllocation a
+                  where i.order = o and a.productId = i.product.id and i.id > a.sinceItemId)
+            order by o.id
+            """)
+    List<Long> findArchivable(@Param("cutoff") Instant cutoff, Limit limit);
+
+    @Modifying
+    @Query("delete from Order o where o.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select coalesce(max(o.id), 0) from Order o")
+    long findMaxId();
 }
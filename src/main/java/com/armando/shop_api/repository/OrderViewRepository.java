@@ -0,0 +1,48 @@
+package com.armando.shop_api.repository;
+
+import com.armando.shop_api.dto.OrderSummaryResponse;
+import com.armando.shop_api.entity.OrderView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Lecturas de órdenes sobre order_views: una consulta por índice, sin hidratar Order/OrderItem/Product
+public interface OrderViewRepository extends JpaRepository<OrderView, Long> {
+
+    Optional<OrderView> findByOrderIdAndUserEmail(Long orderId, String userEmail);
+
+    // Keyset descendente sobre (user_email, order_id)
+    @Query("""
+            select v from OrderView v
+            where v.userEmail = :email and v.orderId < :before
+            order by v.orderId desc
+            """)
+    List<OrderView> findPage(@Param("email") String email, @Param("before") long before, Limit limit);
+
+    @Query("""
+            select new com.armando.shop_api.dto.OrderSummaryResponse(v.orderId, v.total, v.itemCount, v.createdAt, v.updatedAt)
+            from OrderView v
+            where v.userEmail = :email and v.orderId < :before
+            order by v.orderId desc
+            """)
+    List<OrderSummaryResponse> findSummaryPage(@Param("email") String email, @Param("before") long before, Limit limit);
+
+    // Órdenes activas con id en (after, upTo] que aún no tienen vista (alta inicial)
+    @Query(value = """
+            SELECT o.id FROM orders o
+             WHERE o.id > :after AND o.id <= :upTo AND o.status = 'ACTIVE'
+               AND NOT EXISTS (SELECT 1 FROM order_views v WHERE v.order_id = o.id)
+            """, nativeQuery = true)
+    List<Long> findOrderIdsWithoutView(@Param("after") long after, @Param("upTo") long upTo);
+
+    // Vistas de las órdenes que pasan al archivo (OrderArchiver)
+    @Modifying
+    @Query("delete from OrderView v where v.orderId in :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -1,6 +1,85 @@
 package com.armando.shop_api.repository;
 
+import com.armando.shop_api.dto.ProductResponse;
 import com.armando.shop_api.entity.Product;
+import com.armando.shop_api.money.Money;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {}
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Keyset: usa la PK (id > :after) en lugar de OFFSET, el coste no crece con la página
+    @Query("""
+            select p from Product p
+            where p.id > :after
+              and (:minPrice is null or p.price >= :minPrice)
+              and (:maxPrice is null or p.price <= :maxPrice)
+              and (:inStock = false or p.stock > 0)
+            order by p.id asc
+            """)
+    List<Product> findPage(
+            @Param("after") long after,
+            @Param("minPrice") Money minPrice,
+            @Param("maxPrice") Money maxPrice,
+            @Param("inStock") boolean inStock,
+            Limit limit);
+
+    // Descuento atómico: 0 filas afectadas = no había stock suficiente
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stock = p.stock - :qty, p.version = p.version + 1
+            where p.id = :id and p.stock >= :qty
+            """)
+    int decrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stock = p.stock + :qty, p.version = p.version + 1
+            where p.id = :id
+            """)
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // Devuelve el stock de todas las líneas de una orden en una sola sentencia (líneas repetidas se suman).
+    // Subconsulta correlacionada en vez de UPDATE ... JOIN: misma sentencia única y también válida fuera de MySQL.
+    @Modifying
+    @Query(value = """
+            UPDATE products p
+               SET stock = stock + (SELECT SUM(i.quantity) FROM order_items i
+                                     WHERE i.order_id = :orderId AND i.product_id = p.id),
+                   version = version + 1
+             WHERE p.id IN (SELECT i.product_id FROM order_items i WHERE i.order_id = :orderId)
+            """, nativeQuery = true)
+    int restoreStockForOrder(@Param("orderId") Long orderId);
+
+    @Query("select p.id from Product p where p.sku = :sku")
+    Optional<Long> findIdBySku(@Param("sku") String sku);
+
+    @Query("select p.stock from Product p where p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    // Cursor de solo avance para exportar el catálogo completo.
+    // Proyección a DTO: nada entra al contexto de persistencia, la memoria no crece con la tabla.
+    // En MySQL requiere useCursorFetch=true para que el fetch size se respete en el servidor.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.armando.shop_api.dto.ProductResponse(p.id, p.sku, p.name, p.price, p.stock, p.version)
+            from Product p
+            order by p.id asc
+            """)
+    Stream<ProductResponse> streamAllForExport();
+}
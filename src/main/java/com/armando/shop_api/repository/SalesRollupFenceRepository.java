@@ -0,0 +1,19 @@
+package com.armando.shop_api.repository;
+
+import com.armando.shop_api.entity.SalesRollupFence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface SalesRollupFenceRepository extends JpaRepository<SalesRollupFence, Integer> {
+
+    // Bloqueo compartido (FOR SHARE en MySQL): las órdenes no se esperan entre sí,
+    // pero un tramo de la reconstrucción no avanza la valla hasta que terminen las que ya la leyeron.
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select f from SalesRollupFence f where f.id = :id")
+    Optional<SalesRollupFence> findForShare(@Param("id") Integer id);
+}
@@ -0,0 +1,103 @@
+package com.armando.shop_api.repository;
+
+import com.armando.shop_api.entity.UserOrderSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+public interface UserOrderSummaryRepository extends JpaRepository<UserOrderSummary, Long> {
+
+    @Query("select s from UserOrderSummary s where s.userId = (select u.id from User u where u.email = :email)")
+    Optional<UserOrderSummary> findByUserEmail(@Param("email") String email);
+
+    // Suma órdenes nuevas (o solo importe, con count = 0). 0 filas = el usuario aún no tiene resumen.
+    @Modifying
+    @Query(value = """
+            UPDATE user_order_summaries
+               SET order_count = order_count + :count,
+                   total_spent = total_spent + :amount,
+                   last_order_at = CASE WHEN :lastOrderAt IS NOT NULL
+                                         AND (last_order_at IS NULL OR last_order_at < :lastOrderAt)
+                                        THEN :lastOrderAt ELSE last_order_at END,
+                   updated_at = :now
+             WHERE user_id = :userId
+            """, nativeQuery = true)
+    int addOrders(@Param("userId") Long userId,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount,
+                  @Param("lastOrderAt") Instant lastOrderAt,
+                  @Param("now") Instant now);
+
+    // Resta una orden; si era la última, la fecha pasa a la orden anterior, activa o archivada (índices user_id, id)
+    @Modifying
+    @Query(value = """
+            UPDATE user_order_summaries
+               SET order_count = order_count - 1,
+                   total_spent = total_spent - :amount,
+                   last_order_at = CASE WHEN last_order_at <= :createdAt
+                                        THEN (SELECT MAX(t.created_at) FROM (
+                                                  SELECT o.created_at FROM orders o
+                                                   WHERE o.user_id = :userId AND o.id <> :orderId
+                                                     AND o.status = 'ACTIVE'
+                                                  UNION ALL
+                                                  SELECT a.created_at FROM orders_archive a
+                                                   WHERE a.user_id = :userId) t)
+                                        ELSE last_order_at END,
+                   updated_at = :now
+             WHERE user_id = :userId
+            """, nativeQuery = true)
+    int removeOrder(@Param("userId") Long userId,
+                    @Param("orderId") Long orderId,
+                    @Param("amount") BigDecimal amount,
+                    @Param("createdAt") Instant createdAt,
+                    @Param("now") Instant now);
+
+    // Recalcula el resumen de un usuario desde orders y orders_archive (sobrescribe si otra transacción
+    // lo creó a la vez).
+    // flushAutomatically: cuenta también las órdenes escritas en la transacción actual.
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO user_order_summaries (user_id, order_count, total_spent, last_order_at, updated_at)
+            SELECT :userId, COUNT(*), COALESCE(SUM(t.total), 0), MAX(t.created_at), :now
+              FROM (SELECT o.total, o.created_at FROM orders o
+                     WHERE o.user_id = :userId AND o.status = 'ACTIVE'
+                    UNION ALL
+                    SELECT a.total, a.created_at FROM orders_archive a
+                     WHERE a.user_id = :userId) t
+            ON DUPLICATE KEY UPDATE order_count = VALUES(order_count),
+                                    total_spent = VALUES(total_spent),
+                                    last_order_at = VALUES(last_order_at),
+                                    updated_at = VALUES(updated_at)
+            """, nativeQuery = true)
+    int rebuild(@Param("userId") Long userId, @Param("now") Instant now);
+
+    // Alta inicial: crea el resumen de los usuarios con id en (after, upTo] que aún no lo tienen.
+    // Si una orden lo crea a la vez (rebuild), se queda ese: ya cuenta la orden nueva.
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_order_summaries (user_id, order_count, total_spent, last_order_at, updated_at)
+            SELECT u.id, COUNT(t.user_id), COALESCE(SUM(t.total), 0), MAX(t.created_at), :now
+              FROM users u LEFT JOIN (
+                       SELECT o.user_id, o.total, o.created_at FROM orders o
+                        WHERE o.user_id > :after AND o.user_id <= :upTo AND o.status = 'ACTIVE'
+                       UNION ALL
+                       SELECT a.user_id, a.total, a.created_at FROM orders_archive a
+                        WHERE a.user_id > :after AND a.user_id <= :upTo) t ON t.user_id = u.id
+             WHERE u.id > :after AND u.id <= :upTo
+               AND NOT EXISTS (SELECT 1 FROM user_order_summaries s WHERE s.user_id = u.id)
+             GROUP BY u.id
+            ON DUPLICATE KEY UPDATE user_order_summaries.user_id = user_order_summaries.user_id
+            """, nativeQuery = true)
+    int backfillRange(@Param("after") long after, @Param("upTo") long upTo, @Param("now") Instant now);
+
+    @Query(value = """
+            SELECT COUNT(*) FROM users u
+             WHERE NOT EXISTS (SELECT 1 FROM user_order_summaries s WHERE s.user_id = u.id)
+            """, nativeQuery = true)
+    long countUsersWithoutSummary();
+}
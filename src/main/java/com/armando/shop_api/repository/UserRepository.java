@@ -1,11 +1,34 @@
 package com.armando.shop_api.repository;
 
+import com.armando.shop_api.dto.TokenVersionRow;
 import com.armando.shop_api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query("select coalesce(max(u.id), 0) from User u")
+    long findMaxId();
+
+    @Modifying
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1, u.tokensRevokedAt = :now where u.id = :id")
+    int revokeTokens(@Param("id") Long id, @Param("now") Instant now);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    int findTokenVersion(@Param("id") Long id);
+
+    // Revocaciones que aún pueden afectar a tokens vigentes (índice tokens_revoked_at)
+    @Query("""
+            select new com.armando.shop_api.dto.TokenVersionRow(u.id, u.tokenVersion, u.tokensRevokedAt)
+            from User u where u.tokensRevokedAt > :since
+            """)
+    List<TokenVersionRow> findRevokedSince(@Param("since") Instant since);
 }
@@ -0,0 +1,119 @@
+package com.armando.shop_api.retry;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Máxima precedencia: envuelve al proxy de @Transactional, así cada intento abre una transacción nueva.
+// Presupuesto global de reintentos (token bucket): cada llamada aporta `ratio` tokens y cada reintento
+// consume uno; si hay una tormenta de conflictos se deja de reintentar en lugar de amplificar la carga.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OptimisticRetryAspect {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetryAspect.class);
+    private static final long MILLI = 1000;
+
+    private static final class Counters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder exhausted = new LongAdder();
+    }
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    // tokens * 1000 para no usar coma flotante
+    private final AtomicLong budget;
+    private final long depositPerCall;
+    private final long maxBudget;
+
+    public OptimisticRetryAspect(
+            @Value("${app.retry.budget.ratio:0.1}") double ratio,
+            @Value("${app.retry.budget.max-tokens:100}") int maxTokens
+    ) {
+        this.depositPerCall = Math.round(ratio * MILLI);
+        this.maxBudget = maxTokens * MILLI;
+        this.budget = new AtomicLong(maxBudget);
+    }
+
+    @Around("@annotation(com.armando.shop_api.retry.RetryOnConflict)")
+    public Object around(ProceedingJoinPoint pjp) throws Throwable {
+        // dentro de una transacción ajena no se puede reintentar: la decide quien la abrió
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) pjp.getSignature()).getMethod(), pjp.getTarget().getClass());
+        RetryOnConflict retry = method.getAnnotation(RetryOnConflict.class);
+        String name = pjp.getSignature().getDeclaringType().getSimpleName() + "." + pjp.getSignature().getName();
+        Counters c = counters.computeIfAbsent(name, k -> new Counters());
+        c.calls.increment();
+        deposit();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                c.conflicts.increment();
+
+                if (attempt >= retry.maxAttempts() || !withdraw()) {
+                    c.exhausted.increment();
+                    log.warn("Optimistic lock conflict in {} not retried (attempt {})", name, attempt);
+                    throw e;
+                }
+
+                c.retries.increment();
+                long cap = Math.min(retry.maxBackoffMs(), retry.backoffMs() << Math.min(attempt - 1, 20));
+                Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+            }
+        }
+    }
+
+    public Map<String, RetryStats> stats() {
+        Map<String, RetryStats> out = new TreeMap<>();
+        counters.forEach((name, c) -> {
+            long calls = c.calls.sum();
+            long conflicts = c.conflicts.sum();
+            out.put(name, new RetryStats(
+                    calls, conflicts, c.retries.sum(), c.exhausted.sum(),
+                    calls == 0 ? 0.0 : (double) conflicts / calls));
+        });
+        return out;
+    }
+
+    public double remainingBudget() {
+        return budget.get() / (double) MILLI;
+    }
+
+    private void deposit() {
+        budget.accumulateAndGet(depositPerCall, (cur, d) -> Math.min(maxBudget, cur + d));
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long cur = budget.get();
+            if (cur < MILLI) return false;
+            if (budget.compareAndSet(cur, cur - MILLI)) return true;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.armando.shop_api.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Reintenta el método (y su transacción completa) si falla por bloqueo optimista (@Version)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    int maxAttempts() default 3;
+
+    // backoff exponencial con jitter completo: random(0, min(maxBackoffMs, backoffMs * 2^(intento-1)))
+    long backoffMs() default 20;
+
+    long maxBackoffMs() default 200;
+}
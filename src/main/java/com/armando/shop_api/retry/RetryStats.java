@@ -0,0 +1,9 @@
+package com.armando.shop_api.retry;
+
+public record RetryStats(
+        long calls,
+        long conflicts,
+        long retries,
+        long exhausted,
+        double conflictRate
+) {}
@@ -0,0 +1,172 @@
+package com.armando.shop_api.search;
+
+import com.armando.shop_api.entity.Product;
+import com.armando.shop_api.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido en memoria sobre Product.name.
+// Las claves del TreeMap son tokens normalizados, así un prefijo es un subMap (rango ordenado).
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int REBUILD_CHUNK = 1000;
+
+    private final ProductRepository repo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<Long, String[]> docs = new HashMap<>();
+
+    public ProductSearchIndex(ProductRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, String> all = new HashMap<>();
+        long after = 0L;
+        List<Product> chunk;
+        do {
+            chunk = repo.findPage(after, null, null, false, Limit.of(REBUILD_CHUNK));
+            for (Product p : chunk) {
+                all.put(p.getId(), p.getName());
+                after = p.getId();
+            }
+        } while (chunk.size() == REBUILD_CHUNK);
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            all.forEach(this::putLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products in {} ms", all.size(), System.currentTimeMillis() - start);
+    }
+
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            putLocked(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Todos los tokens de la consulta deben coincidir (exacto o como prefijo).
+    // Ranking: exacto > prefijo, bonus si el nombre empieza por el primer token, nombres cortos primero.
+    public List<Long> search(String query, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+
+            for (String term : terms) {
+                Map<Long, Double> termScores = new HashMap<>();
+                for (var e : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                    double s = e.getKey().length() == term.length() ? 2.0 : 1.0;
+                    for (Long id : e.getValue()) {
+                        termScores.merge(id, s, Math::max);
+                    }
+                }
+                if (termScores.isEmpty()) return List.of();
+
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Long, Double> next = new HashMap<>();
+                    for (var e : scores.entrySet()) {
+                        Double s = termScores.get(e.getKey());
+                        if (s != null) next.put(e.getKey(), e.getValue() + s);
+                    }
+                    if (next.isEmpty()) return List.of();
+                    scores = next;
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.size());
+            for (var e : scores.entrySet()) {
+                String[] tokens = docs.get(e.getKey());
+                double s = e.getValue();
+                if (tokens.length > 0 && tokens[0].startsWith(terms[0])) s += 0.5;
+                s -= tokens.length * 0.01;
+                ranked.add(Map.entry(e.getKey(), s));
+            }
+
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            return ranked.stream()
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null) return new String[0];
+        String norm = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(norm.toLowerCase(Locale.ROOT)))
+                .filter(t -> !t.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private void putLocked(Long id, String name) {
+        String[] tokens = tokenize(name);
+        docs.put(id, tokens);
+        for (String t : tokens) {
+            postings.computeIfAbsent(t, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removeLocked(Long id) {
+        String[] tokens = docs.remove(id);
+        if (tokens == null) return;
+        for (String t : tokens) {
+            Set<Long> ids = postings.get(t);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(t);
+        }
+    }
+}
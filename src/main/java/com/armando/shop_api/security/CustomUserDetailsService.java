@@ -3,6 +3,7 @@ package com.armando.shop_api.security;
 import com.armando.shop_api.repository.UserRepository;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -13,7 +14,10 @@ public class CustomUserDetailsService implements UserDetailsService {
         this.userRepository = userRepository;
     }
 
+    // Transacción de escritura a propósito: con réplica, credenciales y tokenVersion se leen de la
+    // primaria (login justo tras el registro, o tras logoutAll, no puede ver una réplica retrasada)
     @Override
+    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
 
         var user = userRepository.findByEmail(email)
@@ -23,6 +27,7 @@ public class CustomUserDetailsService implements UserDetailsService {
                 user.getFullName(),
                 user.getEmail(),
                 user.getPasswordHash(),
-                user.getRole());
+                user.getRole(),
+                user.getTokenVersion());
     }
 }
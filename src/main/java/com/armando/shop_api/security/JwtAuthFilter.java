@@ -7,22 +7,28 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocations revocations;
 
-    public JwtAuthFilter(JwtService jwtService, CustomUserDetailsService userDetailsService) {
+    public JwtAuthFilter(
+            JwtService jwtService,
+            CustomUserDetailsService userDetailsService,
+            TokenRevocations revocations
+    ) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.revocations = revocations;
     }
 
     // Opcional pero recomendado: no filtrar rutas públicas
@@ -56,23 +62,28 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            String email = jwtService.extractSubject(token);
+            // una sola verificación (firma + expiración) por petición, o ninguna si el token está en caché
+            Optional<VerifiedToken> verified = jwtService.verify(token);
 
-            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (verified.isPresent() && SecurityContextHolder.getContext().getAuthentication() == null) {
+                VerifiedToken jwt = verified.get();
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                // sin consultas: id, rol y nombre vienen en el token. Solo los tokens emitidos antes de
+                // incluir esos claims (caducan en como mucho una hora) se completan desde la BD.
+                UserPrincipal principal = jwt.userId() != null
+                        ? UserPrincipal.fromToken(jwt)
+                        : (UserPrincipal) userDetailsService.loadUserByUsername(jwt.subject());
 
-                // si es inválido, NO autenticar (deja que Security responda 401 si aplica)
-                if (!jwtService.isTokenValid(token, userDetails)) {
-                    SecurityContextHolder.clearContext();
+                // si es inválido o está revocado, NO autenticar (deja que Security responda 401 si aplica)
+                if (revocations.isRevoked(principal.getId(), jwt.tokenVersion())) {
                     filterChain.doFilter(request, response);
                     return;
                 }
 
                 var authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.getAuthorities()
                 );
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
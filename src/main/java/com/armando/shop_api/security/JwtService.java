@@ -1,15 +1,24 @@
 package com.armando.shop_api.security;
 
+import com.armando.shop_api.cache.CacheStats;
+import com.armando.shop_api.cache.LruTtlCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
 
 @Service
 public class JwtService {
@@ -18,47 +27,91 @@ public class JwtService {
     private static final String SECRET =
             "super-secret-key-for-shop-api-super-secret-key";
 
-    private static final long EXPIRATION_MS = 1000L * 60 * 60; // 1 hora
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_NAME = "name";
+    private static final String CLAIM_VERSION = "ver";
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    // Clave y parser son inmutables y thread-safe: se construyen una sola vez
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser = Jwts.parser().verifyWith(signingKey).build();
+
+    private final long expirationMs;
+
+    // Tokens ya verificados: un mismo token en peticiones seguidas no repite HMAC ni el parseo JSON.
+    // La clave es el SHA-256 del token completo (no el token en claro, que daría acceso si se vuelca la memoria).
+    private final LruTtlCache<String, VerifiedToken> verified;
+
+    public JwtService(
+            @Value("${app.jwt.expiration-ms:3600000}") long expirationMs,
+            @Value("${app.jwt.cache.max-entries:10000}") int cacheMaxEntries,
+            @Value("${app.jwt.cache.ttl:5m}") Duration cacheTtl
+    ) {
+        this.expirationMs = expirationMs;
+        this.verified = new LruTtlCache<>(cacheMaxEntries, cacheTtl);
     }
 
-    // Generar token
-    public String generateToken(UserDetails user) {
+    // Generar token: lleva lo necesario para armar UserPrincipal sin ir a la BD en cada petición
+    public String generateToken(UserPrincipal user) {
         return Jwts.builder()
                 .subject(user.getUsername()) // subject estándar
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLE, user.getRole())
+                .claim(CLAIM_NAME, user.getFullName())
+                .claim(CLAIM_VERSION, user.getTokenVersion())
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
-                .signWith(getSigningKey())   // JJWT 0.12+ OK
+                .expiration(new Date(System.currentTimeMillis() + expirationMs))
+                .signWith(signingKey)        // JJWT 0.12+ OK
                 .compact();
     }
 
-    // Extraer subject (email)
-    public String extractSubject(String token) {
-        return extractAllClaims(token).getSubject();
-    }
+    // Verifica firma y expiración una sola vez por petición. Vacío si el token no es válido.
+    public Optional<VerifiedToken> verify(String token) {
+        String key = digest(token);
+        VerifiedToken cached = verified.get(key);
+        if (cached != null) {
+            // el TTL de la caché no sustituye a la expiración del propio token
+            if (cached.expiresAt().isAfter(Instant.now())) {
+                return Optional.of(cached);
+            }
+            verified.invalidate(key);
+            return Optional.empty();
+        }
 
-    // Validar token
-    public boolean isTokenValid(String token, UserDetails userDetails) {
+        Claims claims;
         try {
-            String subject = extractSubject(token);
-            return subject.equals(userDetails.getUsername()) && !isTokenExpired(token);
+            claims = parser.parseSignedClaims(token).getPayload(); // también rechaza expirados
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            return Optional.empty();
+        }
+
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number version = claims.get(CLAIM_VERSION, Number.class);
+        VerifiedToken result = new VerifiedToken(
+                claims.getSubject(),
+                userId == null ? null : userId.longValue(),
+                claims.get(CLAIM_ROLE, String.class),
+                claims.get(CLAIM_NAME, String.class),
+                version == null ? 0 : version.intValue(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant());
+        verified.put(key, result);
+        return Optional.of(result);
     }
 
-    // 🔍 Helpers internos
-    private boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+    public CacheStats cacheStats() {
+        return verified.stats();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,75 @@
+package com.armando.shop_api.security;
+
+import com.armando.shop_api.dto.TokenVersionRow;
+import com.armando.shop_api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tabla en memoria de tokens revocados: userId → versión mínima aceptada.
+// La consulta por petición es un get() en un mapa; la BD solo se lee cada refresh-interval.
+// Solo importan las revocaciones más recientes que la vida de un token: los emitidos antes ya expiraron,
+// así que el mapa y la consulta (índice tokens_revoked_at) se mantienen pequeños.
+// Otra instancia de la API aplica una revocación como mucho refresh-interval después.
+@Component
+public class TokenRevocations {
+
+    private record Revocation(int minVersion, Instant revokedAt) {}
+
+    private final UserRepository userRepository;
+    private final Duration tokenLifetime;
+    private final Map<Long, Revocation> revoked = new ConcurrentHashMap<>();
+
+    public TokenRevocations(
+            UserRepository userRepository,
+            @Value("${app.jwt.expiration-ms:3600000}") long expirationMs
+    ) {
+        this.userRepository = userRepository;
+        this.tokenLifetime = Duration.ofMillis(expirationMs);
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Revocation r = revoked.get(userId);
+        return r != null && tokenVersion < r.minVersion();
+    }
+
+    // Aplica una revocación local en cuanto la transacción confirma (sin esperar al siguiente refresh)
+    public void revoke(Long userId, int minVersion, Instant revokedAt) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    merge(userId, minVersion, revokedAt);
+                }
+            });
+        } else {
+            merge(userId, minVersion, revokedAt);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-interval:10s}")
+    public void refresh() {
+        Instant since = Instant.now().minus(tokenLifetime);
+        for (TokenVersionRow row : userRepository.findRevokedSince(since)) {
+            merge(row.userId(), row.tokenVersion(), row.revokedAt());
+        }
+        revoked.values().removeIf(r -> r.revokedAt().isBefore(since));
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    // las versiones solo crecen: nunca se sustituye una revocación por otra más antigua
+    private void merge(Long userId, int minVersion, Instant revokedAt) {
+        revoked.merge(userId, new Revocation(minVersion, revokedAt),
+                (old, now) -> now.minVersion() >= old.minVersion() ? now : old);
+    }
+}
@@ -14,19 +14,28 @@ public class UserPrincipal implements UserDetails {
     private final String email;
     private final String passwordHash;
     private final String role; // "USER" o "ADMIN"
+    private final int tokenVersion;
 
-    public UserPrincipal(Long id, String fullName, String email, String passwordHash, String role) {
+    public UserPrincipal(Long id, String fullName, String email, String passwordHash, String role, int tokenVersion) {
         this.id = id;
         this.fullName = fullName;
         this.email = email;
         this.passwordHash = passwordHash;
         this.role = role;
+        this.tokenVersion = tokenVersion;
+    }
+
+    // Principal de una petición autenticada por JWT: sale de los claims ya verificados, sin consultar users
+    public static UserPrincipal fromToken(VerifiedToken token) {
+        return new UserPrincipal(token.userId(), token.fullName(), token.subject(), null, token.role(),
+                token.tokenVersion());
     }
 
     public Long getId() { return id; }
     public String getFullName() { return fullName; }
     public String getEmail() { return email; }
     public String getRole() { return role; }
+    public int getTokenVersion() { return tokenVersion; }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
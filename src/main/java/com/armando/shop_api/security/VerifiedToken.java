@@ -0,0 +1,15 @@
+package com.armando.shop_api.security;
+
+import java.time.Instant;
+
+// Resultado de verificar un JWT (firma y expiración ya comprobadas).
+// userId es null en tokens emitidos antes de incluir uid/role/name/ver.
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        String role,
+        String fullName,
+        int tokenVersion,
+        Instant issuedAt,
+        Instant expiresAt
+) {}
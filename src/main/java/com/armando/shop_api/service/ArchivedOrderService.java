@@ -0,0 +1,10 @@
+package com.armando.shop_api.service;
+
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.OrderResponse;
+
+// Lecturas de órdenes archivadas (solo lectura, fuera de la tabla caliente)
+public interface ArchivedOrderService {
+    CursorPage<OrderResponse> listMine(String userEmail, Long before, int limit);
+    OrderResponse getMine(Long id, String userEmail);
+}
@@ -5,4 +5,5 @@ import com.armando.shop_api.dto.*;
 public interface AuthService {
     void register(RegisterRequest request);
     AuthResponse login(LoginRequest request);
+    void logoutAll(Long userId);
 }
@@ -0,0 +1,15 @@
+package com.armando.shop_api.service;
+
+import java.util.Collection;
+
+public interface InventoryService {
+
+    // Descuenta qty si hay stock suficiente; false si no lo había (no se modifica nada)
+    boolean reserve(Long productId, int qty);
+
+    // Devuelve qty al stock
+    void release(Long productId, int qty);
+
+    // Devuelve al stock todas las líneas de una orden con un UPDATE por conjunto (productIds: para la caché)
+    void releaseOrder(Long orderId, Collection<Long> productIds);
+}
@@ -0,0 +1,10 @@
+package com.armando.shop_api.service;
+
+import com.armando.shop_api.dto.OrderBatchResponse;
+import com.armando.shop_api.dto.OrderCreateRequest;
+
+import java.util.List;
+
+public interface OrderBatchService {
+    OrderBatchResponse createBatch(List<OrderCreateRequest> orders, String userEmail);
+}
@@ -1,14 +1,17 @@
 package com.armando.shop_api.service;
 
+import com.armando.shop_api.dto.CursorPage;
 import com.armando.shop_api.dto.OrderCreateRequest;
 import com.armando.shop_api.dto.OrderResponse;
-
-import java.util.List;
+import com.armando.shop_api.dto.OrderSummaryResponse;
+import com.armando.shop_api.dto.UserOrderSummaryResponse;
 
 public interface OrderService {
     OrderResponse create(OrderCreateRequest req, String userEmail);
-    List<OrderResponse> listMine(String userEmail);
+    CursorPage<OrderResponse> listMine(String userEmail, Long before, int limit);
+    CursorPage<OrderSummaryResponse> listMineSummary(String userEmail, Long before, int limit);
     OrderResponse getMine(Long id, String userEmail);
+    UserOrderSummaryResponse summaryMine(String userEmail);
 
     OrderResponse update(Long id, OrderCreateRequest req, String userEmail);
     void delete(Long id, String userEmail);
@@ -0,0 +1,10 @@
+package com.armando.shop_api.service;
+
+import com.armando.shop_api.dto.ProductImportResponse;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ProductImportResponse importCsv(InputStream body);
+    ProductImportResponse importNdjson(InputStream body);
+}
@@ -1,14 +1,20 @@
 package com.armando.shop_api.service;
 
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.ProductQuery;
 import com.armando.shop_api.dto.ProductRequest;
 import com.armando.shop_api.dto.ProductResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ProductService {
-    List<ProductResponse> list();
+    CursorPage<ProductResponse> list(ProductQuery query);
+    List<ProductResponse> search(String q, int limit);
     ProductResponse get(Long id);
     ProductResponse create(ProductRequest req);
     ProductResponse update(Long id, ProductRequest req);
     void delete(Long id);
+    void exportNdjson(OutputStream out) throws IOException;
 }
@@ -0,0 +1,17 @@
+package com.armando.shop_api.service;
+
+import com.armando.shop_api.dto.BasketStatsResponse;
+import com.armando.shop_api.dto.RevenueBucketResponse;
+import com.armando.shop_api.dto.RollupRebuildResponse;
+import com.armando.shop_api.dto.TopProductResponse;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SalesAnalyticsService {
+    List<RevenueBucketResponse> revenue(Instant from, Instant to, String granularity);
+    List<TopProductResponse> topProducts(Instant from, Instant to, String by, int limit);
+    BasketStatsResponse basket(Instant from, Instant to);
+
+    RollupRebuildResponse rebuild();
+}
@@ -0,0 +1,15 @@
+package com.armando.shop_api.service;
+
+import com.armando.shop_api.dto.UserOrderSummaryResponse;
+import com.armando.shop_api.money.Money;
+
+import java.time.Instant;
+
+// Mantenimiento del resumen por usuario; los métodos de escritura exigen la transacción de la orden
+public interface UserOrderSummaryService {
+    UserOrderSummaryResponse getMine(String userEmail);
+
+    void ordersAdded(Long userId, int count, Money amount, Instant lastOrderAt);
+    void totalChanged(Long userId, Money delta);
+    void orderRemoved(Long userId, Long orderId, Money total, Instant createdAt);
+}
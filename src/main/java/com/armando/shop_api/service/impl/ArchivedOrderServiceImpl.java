@@ -0,0 +1,80 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.OrderItemResponse;
+import com.armando.shop_api.dto.OrderResponse;
+import com.armando.shop_api.entity.ArchivedOrder;
+import com.armando.shop_api.entity.ArchivedOrderItem;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.repository.ArchivedOrderItemRepository;
+import com.armando.shop_api.repository.ArchivedOrderRepository;
+import com.armando.shop_api.service.ArchivedOrderService;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class ArchivedOrderServiceImpl implements ArchivedOrderService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderItemRepository archivedItemRepository;
+
+    public ArchivedOrderServiceImpl(
+            ArchivedOrderRepository archivedOrderRepository,
+            ArchivedOrderItemRepository archivedItemRepository
+    ) {
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.archivedItemRepository = archivedItemRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> listMine(String userEmail, Long before, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<ArchivedOrder> rows = archivedOrderRepository.findPage(
+                userEmail, before == null ? Long.MAX_VALUE : before, Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<ArchivedOrder> page = hasMore ? rows.subList(0, limit) : rows;
+        if (page.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // dos consultas por página: órdenes y todas sus líneas
+        Map<Long, List<ArchivedOrderItem>> items = archivedItemRepository
+                .findByOrderIdInOrderById(page.stream().map(ArchivedOrder::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(ArchivedOrderItem::getOrderId));
+
+        List<OrderResponse> result = page.stream()
+                .map(o -> toResponse(o, userEmail, items.getOrDefault(o.getId(), List.of())))
+                .toList();
+        return new CursorPage<>(result, hasMore ? page.get(page.size() - 1).getId() : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderResponse getMine(Long id, String userEmail) {
+        ArchivedOrder order = archivedOrderRepository.findMine(id, userEmail)
+                .orElseThrow(() -> new NotFoundException("Archived order not found"));
+        return toResponse(order, userEmail, archivedItemRepository.findByOrderIdInOrderById(List.of(id)));
+    }
+
+    private static OrderResponse toResponse(ArchivedOrder o, String userEmail, List<ArchivedOrderItem> items) {
+        List<OrderItemResponse> lines = items.stream()
+                .map(i -> new OrderItemResponse(i.getProductId(), i.getProductName(), i.getQuantity(),
+                        i.getUnitPrice(), i.getSubtotal()))
+                .toList();
+        return new OrderResponse(o.getId(), o.getUserId(), userEmail, o.getTotal(), lines,
+                o.getCreatedAt(), o.getCreatedBy(), o.getUpdatedAt(), o.getUpdatedBy());
+    }
+}
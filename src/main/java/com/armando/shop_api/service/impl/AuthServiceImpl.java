@@ -6,11 +6,16 @@ import com.armando.shop_api.exception.BusinessException;
 import com.armando.shop_api.repository.UserRepository;
 import com.armando.shop_api.security.CustomUserDetailsService;
 import com.armando.shop_api.security.JwtService;
+import com.armando.shop_api.security.TokenRevocations;
+import com.armando.shop_api.security.UserPrincipal;
 import com.armando.shop_api.service.AuthService;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
 
 @Service
 public class AuthServiceImpl implements AuthService {
@@ -20,19 +25,22 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authManager;
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocations tokenRevocations;
 
     public AuthServiceImpl(
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
             AuthenticationManager authManager,
             JwtService jwtService,
-            CustomUserDetailsService userDetailsService
+            CustomUserDetailsService userDetailsService,
+            TokenRevocations tokenRevocations
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authManager = authManager;
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocations = tokenRevocations;
     }
 
     @Override
@@ -60,10 +68,19 @@ public class AuthServiceImpl implements AuthService {
         );
 
         // 2) carga el usuario completo (con role) y genera token correcto
-        var userDetails = userDetailsService.loadUserByUsername(request.getEmail());
+        var userDetails = (UserPrincipal) userDetailsService.loadUserByUsername(request.getEmail());
 
         String token = jwtService.generateToken(userDetails);
 
         return new AuthResponse(token);
     }
+
+    // Invalida todos los tokens emitidos hasta ahora (también el de esta petición)
+    @Override
+    @Transactional
+    public void logoutAll(Long userId) {
+        Instant now = Instant.now();
+        userRepository.revokeTokens(userId, now);
+        tokenRevocations.revoke(userId, userRepository.findTokenVersion(userId), now);
+    }
 }
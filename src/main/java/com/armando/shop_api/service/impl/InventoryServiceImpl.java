@@ -0,0 +1,58 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.inventory.InventoryLedger;
+import com.armando.shop_api.repository.ProductRepository;
+import com.armando.shop_api.service.InventoryService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+// Stock con UPDATE condicional de una sola sentencia: sin leer-modificar-escribir,
+// el lock de fila dura lo que dura el UPDATE y no hay sobreventa bajo concurrencia.
+// Los SKUs calientes se sirven desde el ledger en memoria y no tocan la fila en cada pedido.
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final InventoryLedger ledger;
+
+    public InventoryServiceImpl(ProductRepository productRepository, ProductCache productCache, InventoryLedger ledger) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.ledger = ledger;
+    }
+
+    @Override
+    @Transactional
+    public boolean reserve(Long productId, int qty) {
+        if (ledger.tryReserve(productId, qty)) return true;
+
+        boolean ok = productRepository.decrementStock(productId, qty) == 1;
+        if (ok) {
+            ledger.reservedFromDatabase(productId, qty);
+            productCache.evict(productId);
+        }
+        return ok;
+    }
+
+    @Override
+    @Transactional
+    public void release(Long productId, int qty) {
+        if (ledger.release(productId, qty)) return;
+
+        productRepository.incrementStock(productId, qty);
+        productCache.evict(productId);
+    }
+
+    // Va directo a products.stock también para SKUs calientes: el ledger ya contó esas unidades
+    // como vendidas (las líneas siguen en order_items) y no debe recibirlas otra vez.
+    @Override
+    @Transactional
+    public void releaseOrder(Long orderId, Collection<Long> productIds) {
+        productRepository.restoreStockForOrder(orderId);
+        productIds.forEach(productCache::evict);
+    }
+}
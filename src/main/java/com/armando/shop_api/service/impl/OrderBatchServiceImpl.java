@@ -0,0 +1,273 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.analytics.SalesDelta;
+import com.armando.shop_api.analytics.SalesRollupStore;
+import com.armando.shop_api.analytics.SalesRollupStore.RebuildFence;
+import com.armando.shop_api.dto.OrderBatchResponse;
+import com.armando.shop_api.dto.OrderBatchResult;
+import com.armando.shop_api.dto.OrderCreateRequest;
+import com.armando.shop_api.dto.OrderItemResponse;
+import com.armando.shop_api.dto.OrderResponse;
+import com.armando.shop_api.entity.Product;
+import com.armando.shop_api.entity.User;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.orderview.OrderViewStore;
+import com.armando.shop_api.repository.ProductRepository;
+import com.armando.shop_api.repository.UserRepository;
+import com.armando.shop_api.service.InventoryService;
+import com.armando.shop_api.service.OrderBatchService;
+import com.armando.shop_api.service.UserOrderSummaryService;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+// Alta masiva de órdenes (integraciones B2B): usuario y productos se resuelven una vez,
+// el stock se reserva con un UPDATE por producto para todo el lote y órdenes + líneas
+// se insertan con JDBC batch. Cada orden se acepta o rechaza por separado.
+@Service
+public class OrderBatchServiceImpl implements OrderBatchService {
+
+    private static final String INSERT_ORDER = """
+            INSERT INTO orders (user_id, total, status, version, created_at, created_by, updated_at, updated_by)
+            VALUES (?, ?, 'ACTIVE', 0, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_ITEM = """
+            INSERT INTO order_items (order_id, product_id, product_name, quantity, unit_price, subtotal)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    // Hibernate guarda los Instant en UTC: las filas insertadas por JDBC deben coincidir
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+    private record Line(Product product, int quantity) {}
+
+    private static final class Pending {
+        final int index;
+        final Map<Long, Integer> lines;
+        String error;
+        Long orderId;
+        Money total;
+
+        Pending(int index, Map<Long, Integer> lines) {
+            this.index = index;
+            this.lines = lines;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final JdbcTemplate jdbc;
+    private final UserOrderSummaryService summaryService;
+    private final SalesRollupStore salesRollups;
+    private final OrderViewStore orderViews;
+
+    public OrderBatchServiceImpl(
+            UserRepository userRepository,
+            ProductRepository productRepository,
+            InventoryService inventoryService,
+            JdbcTemplate jdbc,
+            UserOrderSummaryService summaryService,
+            SalesRollupStore salesRollups,
+            OrderViewStore orderViews
+    ) {
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.inventoryService = inventoryService;
+        this.jdbc = jdbc;
+        this.summaryService = summaryService;
+        this.salesRollups = salesRollups;
+        this.orderViews = orderViews;
+    }
+
+    @Override
+    @Transactional
+    public OrderBatchResponse createBatch(List<OrderCreateRequest> orders, String userEmail) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        List<Pending> pending = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            // una orden inválida se rechaza sola, sin abortar el lote
+            try {
+                pending.add(new Pending(i, OrderServiceImpl.mergeLines(orders.get(i).getItems())));
+            } catch (BadRequestException e) {
+                Pending rejected = new Pending(i, Map.of());
+                rejected.error = e.getMessage();
+                pending.add(rejected);
+            }
+        }
+
+        // 1) todos los productos del lote en un SELECT ... IN
+        Set<Long> ids = new HashSet<>();
+        pending.forEach(p -> ids.addAll(p.lines.keySet()));
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(ids).forEach(p -> products.put(p.getId(), p));
+
+        for (Pending p : pending) {
+            if (!products.keySet().containsAll(p.lines.keySet())) {
+                p.error = "Product not found";
+            }
+        }
+
+        // 2) stock
+        reserve(pending, products);
+
+        // 3) inserts en lote
+        List<Pending> accepted = pending.stream().filter(p -> p.error == null).toList();
+        if (!accepted.isEmpty()) {
+            insert(accepted, user, products);
+        }
+
+        List<OrderBatchResult> results = pending.stream()
+                .map(p -> new OrderBatchResult(p.index, p.orderId, p.total, p.error))
+                .toList();
+        return new OrderBatchResponse(accepted.size(), pending.size() - accepted.size(), results);
+    }
+
+    // Primero se intenta la demanda total por producto (un UPDATE por producto).
+    // Los productos que no alcanzan para todo el lote se reparten orden a orden, en orden de llegada;
+    // una orden que no consigue alguna línea se rechaza y devuelve lo que ya tenía reservado.
+    private void reserve(List<Pending> pending, Map<Long, Product> products) {
+        // en long: la demanda de todo el lote puede superar un int
+        Map<Long, Long> demand = new TreeMap<>();
+        for (Pending p : pending) {
+            if (p.error == null) {
+                p.lines.forEach((id, qty) -> demand.merge(id, (long) qty, Long::sum));
+            }
+        }
+
+        Set<Long> scarce = new HashSet<>();
+        demand.forEach((id, qty) -> {
+            // más de Integer.MAX_VALUE unidades nunca caben en stock: directo al reparto orden a orden
+            if (qty > Integer.MAX_VALUE || !inventoryService.reserve(id, qty.intValue())) {
+                scarce.add(id);
+            }
+        });
+        if (scarce.isEmpty()) return;
+
+        // unidades ya reservadas en bloque que hay que devolver por órdenes rechazadas
+        Map<Long, Integer> giveBack = new TreeMap<>();
+
+        for (Pending p : pending) {
+            if (p.error == null && !Collections.disjoint(p.lines.keySet(), scarce)) {
+                Map<Long, Integer> taken = new TreeMap<>();
+                for (var e : new TreeMap<>(p.lines).entrySet()) {
+                    if (!scarce.contains(e.getKey())) continue;
+                    if (!inventoryService.reserve(e.getKey(), e.getValue())) {
+                        p.error = "Not enough stock for product: " + products.get(e.getKey()).getName();
+                        break;
+                    }
+                    taken.put(e.getKey(), e.getValue());
+                }
+
+                if (p.error != null) {
+                    taken.forEach(inventoryService::release);
+                    p.lines.forEach((id, qty) -> {
+                        if (!scarce.contains(id)) giveBack.merge(id, qty, OrderServiceImpl::addQuantity);
+                    });
+                }
+            }
+        }
+
+        giveBack.forEach(inventoryService::release);
+    }
+
+    private void insert(List<Pending> accepted, User user, Map<Long, Product> products) {
+        Instant createdAt = Instant.now();
+        Timestamp now = Timestamp.from(createdAt);
+        String email = user.getEmail();
+
+        List<List<Line>> lines = new ArrayList<>(accepted.size());
+        for (Pending p : accepted) {
+            List<Line> orderLines = new ArrayList<>();
+            Money total = Money.ZERO;
+            for (var e : p.lines.entrySet()) {
+                Product product = products.get(e.getKey());
+                orderLines.add(new Line(product, e.getValue()));
+                total = total.plus(product.getPrice().times(e.getValue()));
+            }
+            p.total = total;
+            lines.add(orderLines);
+        }
+
+        // órdenes: un batch, ids generados en el mismo orden que las filas
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(
+                con -> con.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, user.getId());
+                        ps.setBigDecimal(2, accepted.get(i).total.toBigDecimal());
+                        ps.setTimestamp(3, now, UTC);
+                        ps.setString(4, email);
+                        ps.setTimestamp(5, now, UTC);
+                        ps.setString(6, email);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return accepted.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).orderId = ((Number) keyList.get(i).values().iterator().next()).longValue();
+        }
+
+        // líneas: un segundo batch con todas las líneas del lote
+        List<Object[]> itemRows = new ArrayList<>();
+        List<OrderResponse> views = new ArrayList<>(accepted.size());
+        // ventas: las órdenes que una reconstrucción en curso aún tiene que leer no suman aquí
+        RebuildFence fence = salesRollups.fence();
+        SalesDelta sales = SalesDelta.at(createdAt);
+        for (int i = 0; i < accepted.size(); i++) {
+            Long orderId = accepted.get(i).orderId;
+            boolean counted = !fence.pending(orderId);
+            if (counted) {
+                sales.orders(1);
+            }
+            List<OrderItemResponse> viewItems = new ArrayList<>();
+            for (Line line : lines.get(i)) {
+                Money price = line.product().getPrice();
+                viewItems.add(new OrderItemResponse(line.product().getId(), line.product().getName(),
+                        line.quantity(), price, price.times(line.quantity())));
+                if (counted) {
+                    sales.line(line.product().getId(), line.quantity(), price.times(line.quantity()).cents());
+                }
+                itemRows.add(new Object[]{
+                        orderId, line.product().getId(), line.product().getName(), line.quantity(),
+                        price.toBigDecimal(), price.times(line.quantity()).toBigDecimal()
+                });
+            }
+            views.add(new OrderResponse(orderId, user.getId(), email, accepted.get(i).total, viewItems,
+                    createdAt, email, createdAt, email));
+        }
+        jdbc.batchUpdate(INSERT_ITEM, itemRows);
+        orderViews.insertAll(views);
+
+        Money batchTotal = Money.ZERO;
+        for (Pending p : accepted) {
+            batchTotal = batchTotal.plus(p.total);
+        }
+        summaryService.ordersAdded(user.getId(), accepted.size(), batchTotal, createdAt);
+        if (!sales.isEmpty()) {
+            salesRollups.apply(sales);
+        }
+    }
+}
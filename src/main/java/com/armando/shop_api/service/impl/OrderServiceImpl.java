@@ -1,104 +1,155 @@
 package com.armando.shop_api.service.impl;
 
+import com.armando.shop_api.analytics.SalesDelta;
+import com.armando.shop_api.analytics.SalesRollupStore;
 import com.armando.shop_api.dto.*;
 import com.armando.shop_api.entity.*;
 import com.armando.shop_api.exception.BadRequestException;
 import com.armando.shop_api.exception.ForbiddenException;
 import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.orderview.OrderViewStore;
 import com.armando.shop_api.repository.*;
+import com.armando.shop_api.retry.RetryOnConflict;
+import com.armando.shop_api.service.InventoryService;
 import com.armando.shop_api.service.OrderService;
+import com.armando.shop_api.service.UserOrderSummaryService;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final UserOrderSummaryService summaryService;
+    private final SalesRollupStore salesRollups;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderViewStore orderViews;
 
     public OrderServiceImpl(
             OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
             UserRepository userRepository,
-            ProductRepository productRepository
+            ProductRepository productRepository,
+            InventoryService inventoryService,
+            UserOrderSummaryService summaryService,
+            SalesRollupStore salesRollups,
+            OrderViewRepository orderViewRepository,
+            OrderViewStore orderViews
     ) {
         this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
+        this.inventoryService = inventoryService;
+        this.summaryService = summaryService;
+        this.salesRollups = salesRollups;
+        this.orderViewRepository = orderViewRepository;
+        this.orderViews = orderViews;
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public OrderResponse create(OrderCreateRequest req, String userEmail) {
 
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
-        Order order = new Order();
-        order.setUser(user);
+        Map<Long, Integer> lines = mergeLines(req.getItems());
+        Map<Long, Product> products = loadProducts(lines.keySet());
 
-        // items
-        for (var itemReq : req.getItems()) {
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new NotFoundException("Product not found"));
+        // descontar stock: decide reserve() (ledger de SKUs calientes o UPDATE condicional), no el
+        // products.stock leído arriba, que para un SKU caliente está a 0 aunque el ledger tenga unidades
+        reserveAll(lines, products);
 
-            int qty = itemReq.getQuantity();
+        Order order = new Order();
+        order.setUser(user);
 
-            if (qty <= 0) {
-                throw new BadRequestException("Quantity must be > 0");
-            }
+        lines.forEach((productId, qty) ->
+                order.getItems().add(buildItem(order, products.get(productId), qty)));
 
-            if (product.getStock() < qty) {
-                throw new BadRequestException("Not enough stock for product: " + product.getName());
-            }
+        order.recalcTotal();
 
-            BigDecimal unitPrice = product.getPrice();
-            BigDecimal subtotal = unitPrice.multiply(BigDecimal.valueOf(qty));
+        Order saved = orderRepository.save(order);
+        summaryService.ordersAdded(user.getId(), 1, saved.getTotal(), saved.getCreatedAt());
+        salesRollups.apply(saved.getId(), SalesDelta.at(saved.getCreatedAt()).orders(1).items(saved.getItems(), 1));
 
-            OrderItem item = OrderItem.builder()
-                    .order(order)
-                    .product(product)
-                    .quantity(qty)
-                    .unitPrice(unitPrice)
-                    .subtotal(subtotal)
-                    .build();
+        OrderResponse response = OrderViewStore.toResponse(saved);
+        orderViews.insert(response);
+        return response;
+    }
 
-            order.getItems().add(item);
+    @Override
+    @Transactional(readOnly = true)
+    public UserOrderSummaryResponse summaryMine(String userEmail) {
+        return summaryService.getMine(userEmail);
+    }
 
-            // descontar stock
-            product.setStock(product.getStock() - qty);
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> listMine(String userEmail, Long before, int limit) {
+        checkLimit(limit);
+        if (!orderViews.backfilled()) {
+            return listMineFromOrders(userEmail, before, limit);
         }
 
-        order.recalcTotal();
+        // una consulta sobre order_views (índice user_email, order_id), sin entidades ni joins
+        List<OrderView> rows = orderViewRepository.findPage(userEmail, cursor(before), Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<OrderView> page = hasMore ? rows.subList(0, limit) : rows;
 
-        Order saved = orderRepository.save(order);
-        return map(saved);
+        List<OrderResponse> items = page.stream().map(orderViews::read).toList();
+        return new CursorPage<>(items, hasMore ? page.get(page.size() - 1).getOrderId() : null);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<OrderResponse> listMine(String userEmail) {
-        return orderRepository.findByUserEmailOrderByIdDesc(userEmail).stream()
-                .map(this::map)
-                .toList();
+    public CursorPage<OrderSummaryResponse> listMineSummary(String userEmail, Long before, int limit) {
+        checkLimit(limit);
+
+        // mientras falten vistas, el resumen sale de orders como el listado completo
+        List<OrderSummaryResponse> rows = orderViews.backfilled()
+                ? orderViewRepository.findSummaryPage(userEmail, cursor(before), Limit.of(limit + 1))
+                : orderRepository.findSummaryPage(userEmail, cursor(before), Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<OrderSummaryResponse> items = hasMore ? rows.subList(0, limit) : rows;
+
+        return new CursorPage<>(items, hasMore ? items.get(items.size() - 1).id() : null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public OrderResponse getMine(Long id, String userEmail) {
-        Order o = orderRepository.findByIdAndUserEmail(id, userEmail)
-                .orElseThrow(() -> new NotFoundException("Order not found"));
-        return map(o);
+        // lectura por clave en order_views; si la orden aún no tiene vista, desde las entidades
+        return orderViewRepository.findByOrderIdAndUserEmail(id, userEmail)
+                .map(orderViews::read)
+                .orElseGet(() -> OrderViewStore.toResponse(orderRepository.findByIdAndUserEmail(id, userEmail)
+                        .orElseThrow(() -> new NotFoundException("Order not found"))));
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public OrderResponse update(Long id, OrderCreateRequest req, String userEmail) {
 
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findDetailedById(id)
                 .orElseThrow(() -> new NotFoundException("Order not found"));
 
         // solo el dueño
@@ -106,96 +157,188 @@ public class OrderServiceImpl implements OrderService {
             throw new ForbiddenException("Forbidden");
         }
 
-        // 1) devolver stock anterior
-        for (OrderItem oldItem : order.getItems()) {
-            Product p = oldItem.getProduct();
-            p.setStock(p.getStock() + oldItem.getQuantity());
+        Map<Long, Integer> lines = mergeLines(req.getItems());
+        Money previousTotal = order.getTotal();
+        // ventas: se restan las líneas actuales y al final se suman las nuevas (hora de creación de la orden)
+        SalesDelta sales = SalesDelta.at(order.getCreatedAt()).items(order.getItems(), -1);
+
+        // 1) líneas actuales por producto (datos antiguos pueden repetir producto: se funden en una)
+        Map<Long, OrderItem> current = new LinkedHashMap<>();
+        Map<Long, Integer> delta = new TreeMap<>();
+        var it = order.getItems().iterator();
+        while (it.hasNext()) {
+            OrderItem item = it.next();
+            Long productId = item.getProduct().getId();
+            delta.merge(productId, -item.getQuantity(), OrderServiceImpl::addQuantity);
+            OrderItem first = current.putIfAbsent(productId, item);
+            if (first != null) {
+                setQuantity(first, addQuantity(first.getQuantity(), item.getQuantity()));
+                it.remove();
+            }
         }
+        lines.forEach((productId, qty) -> delta.merge(productId, qty, OrderServiceImpl::addQuantity));
+
+        // 2) solo se cargan los productos que no estaban en la orden
+        Set<Long> added = new HashSet<>(lines.keySet());
+        added.removeAll(current.keySet());
+        Map<Long, Product> products = loadProducts(added);
+        current.forEach((productId, item) -> products.put(productId, item.getProduct()));
+
+        // 3) stock: solo la diferencia neta por producto, en orden de id
+        delta.forEach((productId, diff) -> {
+            if (diff > 0 && !inventoryService.reserve(productId, diff)) {
+                throw new BadRequestException("Not enough stock for product: " + products.get(productId).getName());
+            }
+            if (diff < 0) {
+                inventoryService.release(productId, -diff);
+            }
+        });
+
+        // 4) líneas: quitar las que ya no están, ajustar cantidades, agregar nuevas.
+        // Las líneas existentes conservan el precio unitario con el que se pidieron.
+        current.forEach((productId, item) -> {
+            Integer qty = lines.get(productId);
+            if (qty == null) {
+                order.getItems().remove(item); // orphanRemoval=true
+            } else if (qty != item.getQuantity().intValue()) {
+                setQuantity(item, qty);
+            }
+        });
+        lines.forEach((productId, qty) -> {
+            if (!current.containsKey(productId)) {
+                order.getItems().add(buildItem(order, products.get(productId), qty));
+            }
+        });
 
-        // 2) borrar items anteriores (orphanRemoval=true)
-        order.getItems().clear();
+        // 5) recalcular total
+        order.recalcTotal();
 
-        // 3) agregar nuevos items
-        for (var itemReq : req.getItems()) {
+        // flush: updatedAt/updatedBy (auditoría) ya asignados al armar la vista
+        Order saved = orderRepository.saveAndFlush(order);
+        summaryService.totalChanged(order.getUser().getId(),
+                Money.ofCents(Math.subtractExact(saved.getTotal().cents(), previousTotal.cents())));
+        salesRollups.apply(saved.getId(), sales.items(saved.getItems(), 1));
 
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new NotFoundException("Product not found"));
+        OrderResponse response = OrderViewStore.toResponse(saved);
+        orderViews.upsert(response);
+        return response;
+    }
 
-            int qty = itemReq.getQuantity();
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public void delete(Long id, String userEmail) {
 
-            if (qty <= 0) {
-                throw new BadRequestException("Quantity must be > 0");
-            }
+        Order order = orderRepository.findActiveById(id)
+                .orElseThrow(() -> new NotFoundException("Order not found"));
 
-            if (product.getStock() < qty) {
-                throw new BadRequestException("Not enough stock for product: " + product.getName());
-            }
+        if (!order.getUser().getEmail().equals(userEmail)) {
+            throw new ForbiddenException("Forbidden");
+        }
+
+        // baja lógica: la fila y sus líneas se quedan (CancelledOrderPurger las borra más tarde)
+        if (orderRepository.cancel(id, userEmail, Instant.now()) == 0) {
+            throw new NotFoundException("Order not found");
+        }
 
-            BigDecimal unitPrice = product.getPrice();
-            BigDecimal subtotal = unitPrice.multiply(BigDecimal.valueOf(qty));
+        // líneas como proyección (sin cargar productos) y stock devuelto con un solo UPDATE
+        List<OrderLineRow> lines = orderItemRepository.findLines(id);
+        inventoryService.releaseOrder(id, lines.stream().map(OrderLineRow::productId).distinct().toList());
 
-            OrderItem item = OrderItem.builder()
-                    .order(order)
-                    .product(product)
-                    .quantity(qty)
-                    .unitPrice(unitPrice)
-                    .subtotal(subtotal)
-                    .build();
+        SalesDelta sales = SalesDelta.at(order.getCreatedAt()).orders(-1);
+        lines.forEach(l -> sales.line(l.productId(), -l.quantity(), -l.subtotal().cents()));
+        salesRollups.apply(id, sales);
 
-            order.getItems().add(item);
+        summaryService.orderRemoved(order.getUser().getId(), order.getId(), order.getTotal(), order.getCreatedAt());
+        orderViews.delete(order.getId());
+    }
 
-            // descontar stock nuevo
-            product.setStock(product.getStock() - qty);
+    // Mientras el alta inicial de vistas no termine (p. ej. un tramo falló), el listado sale de orders:
+    // si no, una orden sin vista faltaría aquí y GET /orders/{id} sí la devolvería.
+    // 1) ids de la página; 2) órdenes completas solo de esos ids
+    private CursorPage<OrderResponse> listMineFromOrders(String userEmail, Long before, int limit) {
+        List<Long> ids = orderRepository.findPageIds(userEmail, cursor(before), Limit.of(limit + 1));
+        boolean hasMore = ids.size() > limit;
+        if (hasMore) {
+            ids = ids.subList(0, limit);
         }
 
-        // 4) recalcular total
-        order.recalcTotal();
+        List<OrderResponse> items = ids.isEmpty()
+                ? List.of()
+                : orderRepository.findDetailedByIdIn(ids).stream().map(OrderViewStore::toResponse).toList();
+        return new CursorPage<>(items, hasMore ? ids.get(ids.size() - 1) : null);
+    }
 
-        Order saved = orderRepository.save(order);
-        return map(saved);
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
 
-    @Override
-    @Transactional
-    public void delete(Long id, String userEmail) {
+    // sin cursor = desde la orden más reciente
+    private static long cursor(Long before) {
+        return before == null ? Long.MAX_VALUE : before;
+    }
 
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Order not found"));
+    // Agrupa las líneas por producto (ids repetidos suman cantidad), conservando el orden.
+    // También lo usa el alta masiva (OrderBatchServiceImpl).
+    static Map<Long, Integer> mergeLines(List<OrderItemCreateRequest> items) {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        for (var itemReq : items) {
+            int qty = itemReq.getQuantity();
+            if (qty <= 0) {
+                throw new BadRequestException("Quantity must be > 0");
+            }
+            lines.merge(itemReq.getProductId(), qty, OrderServiceImpl::addQuantity);
+        }
+        return lines;
+    }
 
-        if (!order.getUser().getEmail().equals(userEmail)) {
-            throw new ForbiddenException("Forbidden");
+    // Suma de cantidades sin desbordar: un total negativo aumentaría el stock en vez de descontarlo
+    static int addQuantity(int a, int b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new BadRequestException("Quantity too large");
         }
+    }
 
-        // devolver stock
-        for (OrderItem item : order.getItems()) {
-            Product p = item.getProduct();
-            p.setStock(p.getStock() + item.getQuantity());
+    // Un único SELECT ... WHERE id IN (...) para todos los productos del pedido
+    private Map<Long, Product> loadProducts(Set<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product p : productRepository.findAllById(ids)) {
+            products.put(p.getId(), p);
+        }
+        if (products.size() != ids.size()) {
+            throw new NotFoundException("Product not found");
         }
+        return products;
+    }
+
+    // Reserva en orden de id para que pedidos concurrentes bloqueen filas en el mismo orden.
+    // Si una falla se lanza excepción y el rollback deshace las anteriores.
+    private void reserveAll(Map<Long, Integer> lines, Map<Long, Product> products) {
+        new TreeMap<>(lines).forEach((productId, qty) -> {
+            if (!inventoryService.reserve(productId, qty)) {
+                throw new BadRequestException("Not enough stock for product: " + products.get(productId).getName());
+            }
+        });
+    }
+
+    private static OrderItem buildItem(Order order, Product product, int qty) {
+        Money unitPrice = product.getPrice();
+        return OrderItem.builder()
+                .order(order)
+                .product(product)
+                .productName(product.getName())
+                .quantity(qty)
+                .unitPrice(unitPrice)
+                .subtotal(unitPrice.times(qty))
+                .build();
+    }
 
-        orderRepository.delete(order);
-    }
-
-    private OrderResponse map(Order o) {
-        var items = o.getItems().stream()
-                .map(i -> new OrderItemResponse(
-                        i.getProduct().getId(),
-                        i.getProduct().getName(),
-                        i.getQuantity(),
-                        i.getUnitPrice(),
-                        i.getSubtotal()
-                ))
-                .toList();
-
-        return new OrderResponse(
-                o.getId(),
-                o.getUser().getId(),
-                o.getUser().getEmail(),
-                o.getTotal(),
-                items,
-                o.getCreatedAt(),
-                o.getCreatedBy(),
-                o.getUpdatedAt(),
-                o.getUpdatedBy()
-        );
+    private static void setQuantity(OrderItem item, int qty) {
+        item.setQuantity(qty);
+        item.setSubtotal(item.getUnitPrice().times(qty));
     }
 }
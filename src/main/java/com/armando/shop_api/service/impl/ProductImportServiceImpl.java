@@ -0,0 +1,393 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.dto.ImportRowError;
+import com.armando.shop_api.dto.ProductImportResponse;
+import com.armando.shop_api.dto.ProductRequest;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.inventory.InventoryLedger;
+import com.armando.shop_api.search.ProductSearchIndex;
+import com.armando.shop_api.service.ProductImportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Importación masiva: lee el cuerpo línea a línea (sin cargarlo entero),
+// valida cada fila con las reglas de ProductRequest y hace upsert en lotes JDBC.
+// Cada fila se identifica por id (producto existente) o por sku (clave natural): reimportar el mismo
+// fichero actualiza los productos en vez de duplicarlos. SQL estándar, sin ON DUPLICATE KEY.
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final String UPDATE_SQL = """
+            UPDATE products SET sku = COALESCE(?, sku), name = ?, price = ?, stock = ?, version = version + 1
+             WHERE id = ?
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO products (sku, name, price, stock, version) VALUES (?, ?, ?, ?, 0)
+            """;
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private record Row(long line, Long id, ProductRequest req) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Validator validator;
+    private final ObjectMapper mapper;
+    private final ProductCache cache;
+    private final ProductSearchIndex searchIndex;
+    private final InventoryLedger ledger;
+    private final int batchSize;
+
+    public ProductImportServiceImpl(
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            Validator validator,
+            ObjectMapper mapper,
+            ProductCache cache,
+            ProductSearchIndex searchIndex,
+            InventoryLedger ledger,
+            @Value("${app.product-import.batch-size:500}") int batchSize
+    ) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.ledger = ledger;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ProductImportResponse importCsv(InputStream body) {
+        Run run = new Run();
+        try (BufferedReader reader = reader(body)) {
+            Map<String, Integer> header = null;
+            String line;
+            long lineNo = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (lineNo == 1 && line.startsWith("\uFEFF")) line = line.substring(1);
+                if (line.isBlank()) continue;
+
+                if (header == null) {
+                    header = parseHeader(line);
+                    continue;
+                }
+
+                try {
+                    List<String> cols = parseCsvLine(line);
+                    ProductRequest req = new ProductRequest();
+                    req.setSku(emptyToNull(col(cols, header.get("sku"))));
+                    req.setName(emptyToNull(col(cols, header.get("name"))));
+                    req.setPrice(parseDecimal(col(cols, header.get("price")), "price"));
+                    req.setStock(parseInt(col(cols, header.get("stock")), "stock"));
+                    Long id = checkId(parseLong(col(cols, header.get("id")), "id"));
+                    run.accept(lineNo, id, req);
+                } catch (IllegalArgumentException e) {
+                    run.fail(lineNo, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return run.finish();
+    }
+
+    @Override
+    public ProductImportResponse importNdjson(InputStream body) {
+        Run run = new Run();
+        try (BufferedReader reader = reader(body)) {
+            String line;
+            long lineNo = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+
+                JsonNode node;
+                ProductRequest req;
+                try {
+                    node = mapper.readTree(line);
+                    if (!node.isObject()) {
+                        throw new IllegalArgumentException("expected a JSON object");
+                    }
+                    req = mapper.treeToValue(node, ProductRequest.class);
+                } catch (IOException | IllegalArgumentException e) {
+                    run.fail(lineNo, "invalid JSON: " + e.getMessage().lines().findFirst().orElse(""));
+                    continue;
+                }
+                try {
+                    run.accept(lineNo, jsonId(node.get("id")), req);
+                } catch (IllegalArgumentException e) {
+                    run.fail(lineNo, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return run.finish();
+    }
+
+    // Estado de una importación en curso
+    private final class Run {
+        final long startNanos = System.nanoTime();
+        final List<Row> batch = new ArrayList<>(batchSize);
+        final List<ImportRowError> errors = new ArrayList<>();
+        long processed;
+        long imported;
+        long failed;
+
+        void accept(long line, Long id, ProductRequest req) {
+            Set<ConstraintViolation<ProductRequest>> violations = validator.validate(req);
+            if (!violations.isEmpty()) {
+                fail(line, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            // sin clave no se sabe si la fila ya existe: insertarla duplicaría el catálogo al reimportar
+            if (id == null && req.getSku() == null) {
+                fail(line, "id or sku is required");
+                return;
+            }
+            processed++;
+            batch.add(new Row(line, id, req));
+            if (batch.size() >= batchSize) flush();
+        }
+
+        void fail(long line, String error) {
+            processed++;
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(line, error));
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) return;
+            List<Row> rows = List.copyOf(batch);
+            batch.clear();
+
+            try {
+                record(tx.execute(status -> apply(rows)), rows.size());
+            } catch (DataAccessException e) {
+                // el lote se revirtió entero: reintento fila a fila para reportar solo las malas
+                // (p. ej. dos filas nuevas con el mismo sku: la segunda actualiza la primera)
+                for (Row r : rows) {
+                    try {
+                        record(tx.execute(status -> apply(List.of(r))), 1);
+                    } catch (DataAccessException rowEx) {
+                        processed--; // fail() lo vuelve a contar
+                        fail(r.line(), "database error: " + rowEx.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        private void record(List<ImportRowError> rejected, int rows) {
+            imported += rows - rejected.size();
+            for (ImportRowError e : rejected) {
+                processed--;
+                fail(e.line(), e.error());
+            }
+        }
+
+        ProductImportResponse finish() {
+            flush();
+            if (imported > 0) {
+                searchIndex.rebuild();
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long elapsedMs = elapsedNanos / 1_000_000;
+            long rowsPerSecond = elapsedNanos > 0 ? processed * 1_000_000_000L / elapsedNanos : processed;
+            return new ProductImportResponse(
+                    processed, imported, failed,
+                    errors, failed > errors.size(),
+                    elapsedMs, rowsPerSecond);
+        }
+    }
+
+    // Un lote en la transacción actual: bloquea las filas existentes (por id o sku), las actualiza e
+    // inserta el resto. Devuelve las filas con un id que no existe, que no se aplican.
+    private List<ImportRowError> apply(List<Row> rows) {
+        Set<Long> ids = new HashSet<>();
+        Set<String> skus = new HashSet<>();
+        for (Row r : rows) {
+            if (r.id() != null) ids.add(r.id());
+            else skus.add(r.req().getSku());
+        }
+        Set<Long> existingIds = new HashSet<>();
+        if (!ids.isEmpty()) {
+            existingIds.addAll(jdbc.queryForList(
+                    "SELECT id FROM products WHERE id IN (" + placeholders(ids.size()) + ") FOR UPDATE",
+                    Long.class, ids.toArray()));
+        }
+        Map<String, Long> idBySku = new HashMap<>();
+        if (!skus.isEmpty()) {
+            jdbc.query("SELECT id, sku FROM products WHERE sku IN (" + placeholders(skus.size()) + ") FOR UPDATE",
+                    rs -> { idBySku.put(rs.getString("sku"), rs.getLong("id")); },
+                    skus.toArray());
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<ImportRowError> rejected = new ArrayList<>();
+        for (Row r : rows) {
+            ProductRequest req = r.req();
+            Long id = r.id() != null ? (existingIds.contains(r.id()) ? r.id() : null) : idBySku.get(req.getSku());
+            if (id != null) {
+                // stock absoluto = total vendible: si el producto está en el ledger caliente, la BD guarda
+                // solo lo que el ledger no tiene ya asignado
+                int stock = ledger.databaseStockFor(id, req.getStock());
+                updates.add(new Object[]{req.getSku(), req.getName(), req.getPrice(), stock, id});
+                cache.evict(id);
+            } else if (r.id() != null) {
+                rejected.add(new ImportRowError(r.line(), "product not found: id " + r.id()));
+            } else {
+                inserts.add(new Object[]{req.getSku(), req.getName(), req.getPrice(), req.getStock()});
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbc.batchUpdate(UPDATE_SQL, updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbc.batchUpdate(INSERT_SQL, inserts);
+            cache.evictPages();
+        }
+        return rejected;
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> cols = parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < cols.size(); i++) {
+            header.put(cols.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "price", "stock")) {
+            if (!header.containsKey(required)) {
+                throw new BadRequestException("CSV header must contain column: " + required);
+            }
+        }
+        return header;
+    }
+
+    // CSV simple (RFC 4180 sin saltos de línea dentro de comillas)
+    static List<String> parseCsvLine(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cur.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        out.add(cur.toString());
+        return out;
+    }
+
+    private static String col(List<String> cols, Integer idx) {
+        if (idx == null || idx >= cols.size()) return null;
+        return cols.get(idx);
+    }
+
+    private static String emptyToNull(String v) {
+        return v == null || v.isBlank() ? null : v.trim();
+    }
+
+    private static Long parseLong(String v, String field) {
+        v = emptyToNull(v);
+        if (v == null) return null;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+    }
+
+    // id de una línea NDJSON: número entero o texto con un entero (como en CSV); nunca 0 por defecto
+    private static Long jsonId(JsonNode id) {
+        if (id == null || id.isNull()) return null;
+        if (id.isIntegralNumber() && id.canConvertToLong()) return checkId(id.longValue());
+        if (id.isTextual()) return checkId(parseLong(id.textValue(), "id"));
+        throw new IllegalArgumentException("id must be an integer");
+    }
+
+    private static Long checkId(Long id) {
+        if (id != null && id <= 0) {
+            throw new IllegalArgumentException("id must be a positive integer");
+        }
+        return id;
+    }
+
+    private static Integer parseInt(String v, String field) {
+        v = emptyToNull(v);
+        if (v == null) return null;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+    }
+
+    private static BigDecimal parseDecimal(String v, String field) {
+        v = emptyToNull(v);
+        if (v == null) return null;
+        try {
+            return new BigDecimal(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be a number");
+        }
+    }
+}
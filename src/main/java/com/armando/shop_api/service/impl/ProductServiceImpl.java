@@ -1,68 +1,224 @@
 package com.armando.shop_api.service.impl;
 
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.ProductQuery;
 import com.armando.shop_api.dto.ProductRequest;
 import com.armando.shop_api.dto.ProductResponse;
 import com.armando.shop_api.entity.Product;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.ConflictException;
 import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.inventory.InventoryLedger;
+import com.armando.shop_api.money.Money;
 import com.armando.shop_api.repository.ProductRepository;
+import com.armando.shop_api.retry.RetryOnConflict;
+import com.armando.shop_api.search.ProductSearchIndex;
 import com.armando.shop_api.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    static final int MAX_PAGE_SIZE = 200;
+    static final int MAX_SEARCH_RESULTS = 50;
+    static final int EXPORT_FLUSH_EVERY = 500;
+
     private final ProductRepository repo;
+    private final ProductCache cache;
+    private final ProductSearchIndex searchIndex;
+    private final InventoryLedger ledger;
+    private final ObjectMapper mapper;
 
-    public ProductServiceImpl(ProductRepository repo) {
+    public ProductServiceImpl(
+            ProductRepository repo,
+            ProductCache cache,
+            ProductSearchIndex searchIndex,
+            InventoryLedger ledger,
+            ObjectMapper mapper
+    ) {
         this.repo = repo;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.ledger = ledger;
+        this.mapper = mapper;
     }
 
     @Override
-    public List<ProductResponse> list() {
-        return repo.findAll().stream()
+    public CursorPage<ProductResponse> list(ProductQuery q) {
+        if (q.limit() < 1 || q.limit() > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (q.minPrice() != null && q.maxPrice() != null && q.minPrice().compareTo(q.maxPrice()) > 0) {
+            throw new BadRequestException("minPrice must be <= maxPrice");
+        }
+
+        CursorPage<ProductResponse> cached = cache.getPage(q);
+        if (cached != null) {
+            return cached;
+        }
+
+        long after = q.after() == null ? 0L : q.after();
+
+        // pedimos uno de más para saber si existe página siguiente
+        List<Product> rows = repo.findPage(after, q.minPrice(), q.maxPrice(), q.inStock(), Limit.of(q.limit() + 1));
+
+        boolean hasMore = rows.size() > q.limit();
+        List<ProductResponse> items = rows.stream()
+                .limit(q.limit())
                 .map(this::toResponse)
                 .toList();
+
+        Long next = hasMore ? items.get(items.size() - 1).getId() : null;
+        CursorPage<ProductResponse> page = new CursorPage<>(items, next);
+        cache.putPage(q, page);
+        return page;
+    }
+
+    @Override
+    public List<ProductResponse> search(String q, int limit) {
+        if (q == null || q.isBlank()) {
+            throw new BadRequestException("q is required");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+
+        List<Long> ids = searchIndex.search(q, limit);
+
+        // resolver por caché; los que falten, en una sola consulta por PK
+        Map<Long, ProductResponse> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            ProductResponse cached = cache.getItem(id);
+            if (cached != null) found.put(id, cached);
+            else missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            for (Product p : repo.findAllById(missing)) {
+                ProductResponse res = toResponse(p);
+                cache.putItem(res);
+                found.put(p.getId(), res);
+            }
+        }
+
+        // respetar el orden del ranking
+        return ids.stream()
+                .map(found::get)
+                .filter(r -> r != null)
+                .toList();
     }
 
     @Override
     public ProductResponse get(Long id) {
+        ProductResponse cached = cache.getItem(id);
+        if (cached != null) {
+            return cached;
+        }
+
         Product p = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product not found"));
-        return toResponse(p);
+        ProductResponse res = toResponse(p);
+        cache.putItem(res);
+        return res;
     }
 
     @Override
+    @Transactional
     public ProductResponse create(ProductRequest req) {
+        checkSkuFree(req.getSku(), null);
         Product p = new Product();
+        p.setSku(req.getSku());
         p.setName(req.getName());
-        p.setPrice(req.getPrice());
+        p.setPrice(Money.of(req.getPrice()));
         p.setStock(req.getStock());
-        return toResponse(repo.save(p));
+        ProductResponse res = toResponse(repo.save(p));
+        // id nuevo (el mayor): solo las últimas páginas lo cubren
+        cache.evict(res.getId());
+        searchIndex.put(res.getId(), res.getName());
+        return res;
     }
 
+    // compite con los descuentos de stock de los pedidos (que incrementan version)
     @Override
+    @RetryOnConflict
+    @Transactional
     public ProductResponse update(Long id, ProductRequest req) {
         Product p = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product not found"));
 
+        // sin sku en la petición se conserva el que tenga
+        if (req.getSku() != null) {
+            checkSkuFree(req.getSku(), id);
+            p.setSku(req.getSku());
+        }
         p.setName(req.getName());
-        p.setPrice(req.getPrice());
-        p.setStock(req.getStock());
+        p.setPrice(Money.of(req.getPrice()));
+        // stock absoluto = total vendible, como en la importación: con el SKU en el ledger caliente la BD
+        // guarda solo lo que el ledger no tiene ya asignado (si no, esas unidades se venderían dos veces)
+        p.setStock(ledger.databaseStockFor(id, req.getStock()));
 
-        return toResponse(repo.save(p));
+        ProductResponse res = toResponse(repo.save(p));
+        cache.evict(id);
+        searchIndex.put(id, res.getName());
+        return res;
     }
 
     @Override
+    @RetryOnConflict
+    @Transactional
     public void delete(Long id) {
         if (!repo.existsById(id)) {
             throw new NotFoundException("Product not found");
         }
         repo.deleteById(id);
+        cache.evict(id);
+        searchIndex.remove(id);
+    }
+
+    // NDJSON: una línea por producto, escrita según llega del cursor
+    @Override
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream out) throws IOException {
+        try (Stream<ProductResponse> rows = repo.streamAllForExport();
+             SequenceWriter writer = mapper.writerFor(ProductResponse.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+
+            long count = 0;
+            for (var it = rows.iterator(); it.hasNext(); ) {
+                writer.write(it.next());
+                count++;
+                // primer flush inmediato para que el cliente reciba el primer byte cuanto antes
+                if (count == 1 || count % EXPORT_FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            if (count > 0) {
+                out.write('\n');
+            }
+        }
+    }
+
+    private void checkSkuFree(String sku, Long productId) {
+        if (sku != null && repo.findIdBySku(sku).filter(other -> !other.equals(productId)).isPresent()) {
+            throw new ConflictException("sku already in use: " + sku);
+        }
     }
 
     private ProductResponse toResponse(Product p) {
-        return new ProductResponse(p.getId(), p.getName(), p.getPrice(), p.getStock());
+        return new ProductResponse(p.getId(), p.getSku(), p.getName(), p.getPrice(), p.getStock(), p.getVersion());
     }
 }
@@ -0,0 +1,196 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.analytics.SalesRollupStore;
+import com.armando.shop_api.analytics.SalesRollupStore.HourRow;
+import com.armando.shop_api.dto.BasketStatsResponse;
+import com.armando.shop_api.dto.RevenueBucketResponse;
+import com.armando.shop_api.dto.RollupRebuildResponse;
+import com.armando.shop_api.dto.TopProductResponse;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.ConflictException;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.repository.ArchivedOrderRepository;
+import com.armando.shop_api.repository.OrderRepository;
+import com.armando.shop_api.service.SalesAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Informes de ventas servidos desde las tablas por hora: cada consulta lee como mucho unas miles de filas
+// pequeñas, nunca orders/order_items.
+@Service
+public class SalesAnalyticsServiceImpl implements SalesAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesAnalyticsServiceImpl.class);
+
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(7);
+    private static final Duration MAX_HOURLY_RANGE = Duration.ofDays(31);
+    private static final Duration MAX_RANGE = Duration.ofDays(366);
+    private static final int MAX_TOP = 100;
+
+    private final SalesRollupStore rollups;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate tx;
+    private final int rebuildChunk;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public SalesAnalyticsServiceImpl(
+            SalesRollupStore rollups,
+            OrderRepository orderRepository,
+            ArchivedOrderRepository archivedOrderRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.analytics.rebuild-chunk:5000}") int rebuildChunk
+    ) {
+        this.rollups = rollups;
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.rebuildChunk = rebuildChunk;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RevenueBucketResponse> revenue(Instant from, Instant to, String granularity) {
+        boolean daily = switch (granularity) {
+            case "hour" -> false;
+            case "day" -> true;
+            default -> throw new BadRequestException("granularity must be hour or day");
+        };
+        Instant start = start(from, to);
+        Instant end = end(to);
+        checkRange(start, end, daily ? MAX_RANGE : MAX_HOURLY_RANGE);
+
+        List<RevenueBucketResponse> buckets = new ArrayList<>();
+        Instant bucket = null;
+        long orders = 0, units = 0, cents = 0;
+        for (HourRow row : rollups.hours(start, end)) {
+            Instant key = daily ? row.hourStart().truncatedTo(ChronoUnit.DAYS) : row.hourStart();
+            if (!key.equals(bucket)) {
+                if (bucket != null) {
+                    buckets.add(bucket(bucket, orders, units, cents));
+                }
+                bucket = key;
+                orders = units = cents = 0;
+            }
+            orders += row.orders();
+            units += row.units();
+            cents = Math.addExact(cents, row.revenue().cents());
+        }
+        if (bucket != null) {
+            buckets.add(bucket(bucket, orders, units, cents));
+        }
+        return buckets;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TopProductResponse> topProducts(Instant from, Instant to, String by, int limit) {
+        boolean byRevenue = switch (by) {
+            case "units" -> false;
+            case "revenue" -> true;
+            default -> throw new BadRequestException("by must be units or revenue");
+        };
+        if (limit < 1 || limit > MAX_TOP) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_TOP);
+        }
+        Instant start = start(from, to);
+        Instant end = end(to);
+        checkRange(start, end, MAX_RANGE);
+
+        return rollups.topProducts(start, end, byRevenue, limit).stream()
+                .map(r -> new TopProductResponse(r.productId(), r.name(), r.units(), r.revenue()))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BasketStatsResponse basket(Instant from, Instant to) {
+        Instant start = start(from, to);
+        Instant end = end(to);
+        checkRange(start, end, MAX_RANGE);
+
+        HourRow totals = rollups.totals(start, end);
+        double averageUnits = totals.orders() == 0 ? 0 : (double) totals.units() / totals.orders();
+        return new BasketStatsResponse(totals.orders(), totals.units(), totals.revenue(),
+                average(totals.revenue().cents(), totals.orders()), averageUnits);
+    }
+
+    // Reconstrucción completa desde orders, por tramos de id (una transacción por tramo).
+    // La valla de SalesRollupStore separa las escrituras concurrentes: las órdenes de tramos pendientes no suman
+    // su delta (las cuenta el tramo al leerlas) y las demás sí, así ninguna se cuenta dos veces ni se pierde.
+    // Si falla a mitad, la valla queda puesta y los informes incompletos hasta relanzarla.
+    @Override
+    public RollupRebuildResponse rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ConflictException("Sales rollup rebuild already running");
+        }
+        try {
+            long started = System.nanoTime();
+            // las archivadas conservan su id: los tramos cubren ambas tablas
+            long maxId = tx.execute(s -> rollups.beginRebuild(
+                    () -> Math.max(orderRepository.findMaxId(), archivedOrderRepository.findMaxId())));
+
+            long orders = 0;
+            int chunks = 0;
+            for (long after = 0; after < maxId; after += rebuildChunk) {
+                long from = after;
+                orders += tx.execute(s -> rollups.rebuildChunk(from, Math.min(from + rebuildChunk, maxId)));
+                chunks++;
+            }
+            tx.executeWithoutResult(s -> rollups.endRebuild());
+
+            long millis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+            log.info("Sales rollups rebuilt: {} orders in {} chunks ({} ms)", orders, chunks, millis);
+            return new RollupRebuildResponse(orders, chunks, millis);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // por defecto: los últimos 7 días; los límites se alinean a la hora
+    private static Instant start(Instant from, Instant to) {
+        Instant value = from != null ? from : end(to).minus(DEFAULT_RANGE);
+        return value.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static Instant end(Instant to) {
+        Instant value = to != null ? to : Instant.now();
+        Instant hour = value.truncatedTo(ChronoUnit.HOURS);
+        // la hora en curso se incluye completa
+        return hour.equals(value) ? hour : hour.plus(1, ChronoUnit.HOURS);
+    }
+
+    private static void checkRange(Instant start, Instant end, Duration max) {
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("from must be before to");
+        }
+        if (Duration.between(start, end).compareTo(max) > 0) {
+            throw new BadRequestException("Range too large (max " + max.toDays() + " days)");
+        }
+    }
+
+    private static RevenueBucketResponse bucket(Instant start, long orders, long units, long cents) {
+        return new RevenueBucketResponse(start, orders, units, Money.ofCents(cents), average(cents, orders));
+    }
+
+    private static Money average(long cents, long count) {
+        if (count == 0) return Money.ZERO;
+        return Money.ofCents(BigDecimal.valueOf(cents)
+                .divide(BigDecimal.valueOf(count), 0, RoundingMode.HALF_UP)
+                .longValueExact());
+    }
+}
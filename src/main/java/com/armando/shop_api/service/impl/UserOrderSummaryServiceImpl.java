@@ -0,0 +1,102 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.dto.UserOrderSummaryResponse;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.repository.UserOrderSummaryRepository;
+import com.armando.shop_api.repository.UserRepository;
+import com.armando.shop_api.service.UserOrderSummaryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+@Service
+public class UserOrderSummaryServiceImpl implements UserOrderSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserOrderSummaryServiceImpl.class);
+
+    private static final int BACKFILL_CHUNK = 1000;
+
+    private final UserOrderSummaryRepository summaryRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate tx;
+
+    public UserOrderSummaryServiceImpl(
+            UserOrderSummaryRepository summaryRepository,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.summaryRepository = summaryRepository;
+        this.userRepository = userRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserOrderSummaryResponse getMine(String userEmail) {
+        // sin fila = el usuario todavía no tiene órdenes
+        return summaryRepository.findByUserEmail(userEmail)
+                .map(s -> new UserOrderSummaryResponse(s.getOrderCount(), s.getTotalSpent(), s.getLastOrderAt()))
+                .orElse(new UserOrderSummaryResponse(0, Money.ZERO, null));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ordersAdded(Long userId, int count, Money amount, Instant lastOrderAt) {
+        if (summaryRepository.addOrders(userId, count, amount.toBigDecimal(), lastOrderAt, Instant.now()) == 0) {
+            summaryRepository.rebuild(userId, Instant.now());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void totalChanged(Long userId, Money delta) {
+        if (delta.cents() == 0) return;
+        if (summaryRepository.addOrders(userId, 0, delta.toBigDecimal(), null, Instant.now()) == 0) {
+            summaryRepository.rebuild(userId, Instant.now());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderRemoved(Long userId, Long orderId, Money total, Instant createdAt) {
+        if (summaryRepository.removeOrder(userId, orderId, total.toBigDecimal(), createdAt, Instant.now()) == 0) {
+            summaryRepository.rebuild(userId, Instant.now());
+        }
+    }
+
+    // Usuarios anteriores a la tabla de resúmenes: se calculan una vez desde orders, por tramos de id.
+    // Nunca impide el arranque: un tramo que falla se registra y se reintenta en el siguiente arranque
+    // (mientras, esos usuarios ven el resumen a cero hasta su próxima orden, que lo recalcula).
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long maxId;
+        try {
+            if (summaryRepository.countUsersWithoutSummary() == 0) return;
+            maxId = userRepository.findMaxId();
+        } catch (RuntimeException ex) {
+            log.warn("Order summary backfill skipped: {}", ex.getMessage());
+            return;
+        }
+
+        int created = 0;
+        int failedChunks = 0;
+        for (long after = 0; after < maxId; after += BACKFILL_CHUNK) {
+            long from = after;
+            try {
+                created += tx.execute(s -> summaryRepository.backfillRange(from, from + BACKFILL_CHUNK, Instant.now()));
+            } catch (RuntimeException ex) {
+                failedChunks++;
+                log.warn("Order summary backfill failed for users ({}, {}]", from, from + BACKFILL_CHUNK, ex);
+            }
+        }
+        log.info("Order summaries backfilled for {} users ({} chunks failed)", created, failedChunks);
+    }
+}
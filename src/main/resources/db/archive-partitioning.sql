@@ -0,0 +1,47 @@
+-- Particionado opcional (MySQL 8) de orders_archive y order_items_archive por año de created_at.
+-- Ejecutar a mano una sola vez, después de que Hibernate haya creado las tablas (ddl-auto: update).
+--
+-- Por qué solo el archivo: InnoDB no admite claves foráneas en tablas particionadas, y orders/order_items
+-- las tienen (usuario, producto, orden). La tabla caliente se mantiene pequeña con OrderArchiver;
+-- el archivo crece por años y con particiones cada consulta por fecha toca solo su año, y borrar un año
+-- entero es un DROP PARTITION instantáneo en vez de millones de DELETE.
+--
+-- La clave de partición debe formar parte de todas las claves únicas: la PK pasa a (id, created_at).
+-- Los ids siguen siendo únicos (vienen de orders.id / order_items.id) y la búsqueda por id usa el prefijo.
+-- created_at se fija como DATETIME(6) (UTC, igual que lo escribe la aplicación): RANGE COLUMNS no admite TIMESTAMP.
+
+ALTER TABLE orders_archive
+    MODIFY created_at DATETIME(6) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+ALTER TABLE orders_archive
+    PARTITION BY RANGE COLUMNS (created_at) (
+        PARTITION p2024 VALUES LESS THAN ('2025-01-01'),
+        PARTITION p2025 VALUES LESS THAN ('2026-01-01'),
+        PARTITION p2026 VALUES LESS THAN ('2027-01-01'),
+        PARTITION pmax VALUES LESS THAN (MAXVALUE)
+    );
+
+ALTER TABLE order_items_archive
+    MODIFY created_at DATETIME(6) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+ALTER TABLE order_items_archive
+    PARTITION BY RANGE COLUMNS (created_at) (
+        PARTITION p2024 VALUES LESS THAN ('2025-01-01'),
+        PARTITION p2025 VALUES LESS THAN ('2026-01-01'),
+        PARTITION p2026 VALUES LESS THAN ('2027-01-01'),
+        PARTITION pmax VALUES LESS THAN (MAXVALUE)
+    );
+
+-- Mantenimiento anual: abrir el año siguiente partiendo pmax (instantáneo mientras pmax esté vacía)
+-- ALTER TABLE orders_archive REORGANIZE PARTITION pmax INTO (
+--     PARTITION p2027 VALUES LESS THAN ('2028-01-01'),
+--     PARTITION pmax VALUES LESS THAN (MAXVALUE));
+-- (lo mismo en order_items_archive)
+--
+-- Retención: eliminar un año completo del archivo (las dos tablas)
+-- ALTER TABLE order_items_archive DROP PARTITION p2024;
+-- ALTER TABLE orders_archive DROP PARTITION p2024;
@@ -0,0 +1,76 @@
+package com.armando.shop_api.archive;
+
+import com.armando.shop_api.repository.ArchivedOrderItemRepository;
+import com.armando.shop_api.repository.ArchivedOrderRepository;
+import com.armando.shop_api.repository.OrderItemRepository;
+import com.armando.shop_api.repository.OrderRepository;
+import com.armando.shop_api.repository.OrderViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderArchiverTest {
+
+    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+    private OrderViewRepository orderViewRepository;
+    private ArchivedOrderRepository archivedOrderRepository;
+    private ArchivedOrderItemRepository archivedItemRepository;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+        orderViewRepository = mock(OrderViewRepository.class);
+        archivedOrderRepository = mock(ArchivedOrderRepository.class);
+        archivedItemRepository = mock(ArchivedOrderItemRepository.class);
+    }
+
+    @Test
+    void archive_copiesThenDeletes_eachBatchInOrder_untilAShortBatch() {
+        when(orderRepository.findArchivable(any(), any())).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(orderRepository.deleteByIdIn(List.of(1L, 2L))).thenReturn(2);
+        when(orderRepository.deleteByIdIn(List.of(3L))).thenReturn(1);
+
+        assertEquals(3, archiver(true, 2, 10).archive());
+
+        InOrder inOrder = inOrder(archivedOrderRepository, archivedItemRepository, orderViewRepository,
+                orderItemRepository, orderRepository);
+        inOrder.verify(archivedOrderRepository).copyFromOrders(eq(List.of(1L, 2L)), any());
+        inOrder.verify(archivedItemRepository).copyFromOrderItems(List.of(1L, 2L));
+        inOrder.verify(orderViewRepository).deleteByOrderIdIn(List.of(1L, 2L));
+        inOrder.verify(orderItemRepository).deleteByOrderIdIn(List.of(1L, 2L));
+        inOrder.verify(orderRepository).deleteByIdIn(List.of(1L, 2L));
+        // el segundo lote vino corto: no se pide un tercero
+        verify(orderRepository, times(2)).findArchivable(any(), any());
+    }
+
+    @Test
+    void archive_stopsAtMaxBatches_evenIfMoreArePending() {
+        when(orderRepository.findArchivable(any(), any())).thenReturn(List.of(1L, 2L));
+        when(orderRepository.deleteByIdIn(any())).thenReturn(2);
+
+        assertEquals(6, archiver(true, 2, 3).archive());
+        verify(orderRepository, times(3)).findArchivable(any(), any());
+    }
+
+    @Test
+    void scheduled_disabled_doesNothing() {
+        archiver(false, 2, 3).scheduled();
+        verifyNoInteractions(orderRepository, archivedOrderRepository, archivedItemRepository);
+    }
+
+    private OrderArchiver archiver(boolean enabled, int batchSize, int maxBatches) {
+        return new OrderArchiver(orderRepository, orderItemRepository, orderViewRepository, archivedOrderRepository,
+                archivedItemRepository, mock(PlatformTransactionManager.class), enabled, Duration.ofDays(365),
+                batchSize, maxBatches, Duration.ZERO);
+    }
+}
@@ -0,0 +1,115 @@
+package com.armando.shop_api.cache;
+
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.ProductQuery;
+import com.armando.shop_api.dto.ProductResponse;
+import com.armando.shop_api.money.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheTest {
+
+    // dos páginas de 2 sin filtros: (0, 2] y (2, ∞)
+    private static final ProductQuery FIRST = new ProductQuery(null, 2, null, null, false);
+    private static final ProductQuery LAST = new ProductQuery(2L, 2, null, null, false);
+
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCache(100, 100, Duration.ofMinutes(1));
+        cache.putPage(FIRST, page(2L, 1L, 2L));
+        cache.putPage(LAST, page(null, 3L, 4L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evict_dropsTheProductAndOnlyThePagesCoveringIt() {
+        cache.putItem(product(1L));
+        cache.putItem(product(3L));
+
+        cache.evict(1L);
+
+        assertNull(cache.getItem(1L));
+        assertNull(cache.getPage(FIRST));
+        // un cambio de stock en el producto 1 no toca el resto del listado
+        assertNotNull(cache.getItem(3L));
+        assertNotNull(cache.getPage(LAST));
+    }
+
+    @Test
+    void newProduct_onlyDropsTheLastPage() {
+        cache.evict(5L);
+
+        assertNotNull(cache.getPage(FIRST));
+        assertNull(cache.getPage(LAST));
+    }
+
+    @Test
+    void filteredPage_isDropped_whenAProductInsideItsRangeChanges_evenIfNotListed() {
+        // inStock: el producto 2 (sin stock) no sale, pero una devolución puede hacerlo entrar
+        ProductQuery inStock = new ProductQuery(null, 2, null, null, true);
+        cache.putPage(inStock, page(3L, 1L, 3L));
+
+        cache.evict(2L);
+
+        assertNull(cache.getPage(inStock));
+        assertNull(cache.getPage(FIRST));
+        assertNotNull(cache.getPage(LAST));
+    }
+
+    @Test
+    void evictInsideATransaction_isRepeatedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evict(1L);
+
+        // otra petición lee el valor viejo antes del commit y lo vuelve a cachear
+        cache.putItem(product(1L));
+        cache.putPage(FIRST, page(2L, 1L, 2L));
+
+        commit();
+        assertNull(cache.getItem(1L));
+        assertNull(cache.getPage(FIRST));
+        assertNotNull(cache.getPage(LAST));
+    }
+
+    @Test
+    void evictPages_keepsItems() {
+        cache.putItem(product(1L));
+
+        cache.evictPages();
+
+        assertNull(cache.getPage(FIRST));
+        assertNull(cache.getPage(LAST));
+        assertNotNull(cache.getItem(1L));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        syncs.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static CursorPage<ProductResponse> page(Long nextCursor, Long... ids) {
+        return new CursorPage<>(Arrays.stream(ids).map(ProductCacheTest::product).toList(), nextCursor);
+    }
+
+    private static ProductResponse product(Long id) {
+        return new ProductResponse(id, null, "Laptop " + id, Money.valueOf("100.00"), 5, 0L);
+    }
+}
@@ -0,0 +1,122 @@
+package com.armando.shop_api.controller;
+
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.ProductQuery;
+import com.armando.shop_api.dto.ProductResponse;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.service.ProductImportService;
+import com.armando.shop_api.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ProductControllerTest {
+
+    private ProductService service;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        service = mock(ProductService.class);
+        mvc = MockMvcBuilders.standaloneSetup(new ProductController(service, mock(ProductImportService.class))).build();
+    }
+
+    @Test
+    void list_sameContent_sameETag_andIfNoneMatchGets304WithoutBody() throws Exception {
+        when(service.list(any())).thenReturn(page(product(1L, 3L), product(2L, 7L)));
+
+        String etag = mvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, public"))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        // otra instancia (otro servicio) con el mismo contenido: mismo ETag
+        ProductService other = mock(ProductService.class);
+        when(other.list(any())).thenReturn(page(product(1L, 3L), product(2L, 7L)));
+        MockMvc otherMvc = MockMvcBuilders.standaloneSetup(new ProductController(other, mock(ProductImportService.class))).build();
+
+        otherMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void list_productVersionChanged_returns200WithNewETag() throws Exception {
+        when(service.list(any())).thenReturn(page(product(1L, 3L)), page(product(1L, 4L)));
+
+        String etag = mvc.perform(get("/products")).andReturn().getResponse().getHeader("ETag");
+
+        // un movimiento de stock sube la versión: el cliente recibe el cuerpo nuevo
+        String fresh = mvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].stock").value(5))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, fresh);
+    }
+
+    @Test
+    void list_passesFiltersAndCursorToTheService() throws Exception {
+        when(service.list(any())).thenReturn(new CursorPage<>(List.of(), null));
+
+        mvc.perform(get("/products")
+                        .param("after", "20").param("limit", "10")
+                        .param("minPrice", "5.00").param("maxPrice", "99.99").param("inStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+
+        verify(service).list(new ProductQuery(20L, 10, Money.valueOf("5.00"), Money.valueOf("99.99"), true));
+    }
+
+    @Test
+    void get_etagFollowsProductVersion_304WhenUnchanged_200AfterChange() throws Exception {
+        when(service.get(1L)).thenReturn(product(1L, 3L), product(1L, 3L), product(1L, 4L));
+
+        mvc.perform(get("/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"p1-3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mvc.perform(get("/products/1").header("If-None-Match", "\"p1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mvc.perform(get("/products/1").header("If-None-Match", "\"p1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"p1-4\""));
+    }
+
+    @Test
+    void export_streamsNdjsonStraightToTheResponse() throws Exception {
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(0);
+            out.write("{\"id\":1,\"name\":\"Ñandú\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(service).exportNdjson(any());
+
+        mvc.perform(get("/products/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andExpect(content().bytes("{\"id\":1,\"name\":\"Ñandú\"}\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static CursorPage<ProductResponse> page(ProductResponse... items) {
+        return new CursorPage<>(List.of(items), null);
+    }
+
+    private static ProductResponse product(Long id, Long version) {
+        return new ProductResponse(id, null, "Laptop " + id, Money.valueOf("100.00"), (int) (version + 1), version);
+    }
+}
@@ -0,0 +1,193 @@
+package com.armando.shop_api.datasource;
+
+import com.armando.shop_api.datasource.ReadWriteRoutingDataSource.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Dos H2 en memoria hacen de primaria y réplica; cada una guarda su propio nombre en la tabla "node".
+// Mismo montaje que producción: Hibernate + JpaTransactionManager sobre LazyConnectionDataSourceProxy.
+class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaLagMonitor monitor;
+    private ReadWriteRoutingDataSource routing;
+    private LocalContainerEntityManagerFactoryBean emfBean;
+    private EntityManager em;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writeTx;
+    private TransactionTemplate readTx;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+        // en producción la réplica recibe la tabla del latido por replicación; aquí se crea a mano
+        new JdbcTemplate(replica).execute("CREATE TABLE replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+
+        monitor = new ReplicaLagMonitor(primary, replica, Duration.ofSeconds(2));
+        monitor.createHeartbeatTable();
+        routing = new ReadWriteRoutingDataSource(monitor::isUsable, Duration.ofSeconds(5));
+        routing.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        routing.afterPropertiesSet();
+
+        DataSource proxy = new LazyConnectionDataSourceProxy(routing);
+        emfBean = new LocalContainerEntityManagerFactoryBean();
+        emfBean.setDataSource(proxy);
+        emfBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        emfBean.setPackagesToScan(ReadWriteRoutingDataSource.class.getPackageName()); // sin entidades
+        emfBean.afterPropertiesSet();
+        EntityManagerFactory emf = emfBean.getObject();
+
+        em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        // JdbcTemplate comparte la conexión que JpaTransactionManager expone para el DataSource
+        jdbc = new JdbcTemplate(proxy);
+        JpaTransactionManager tm = new JpaTransactionManager(emf);
+        writeTx = new TransactionTemplate(tm);
+        readTx = new TransactionTemplate(tm);
+        readTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        emfBean.destroy();
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    private static DataSource h2(String name) {
+        DataSource ds = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate t = new JdbcTemplate(ds);
+        t.execute("CREATE TABLE node (name VARCHAR(20))");
+        t.update("INSERT INTO node VALUES (?)", name);
+        return ds;
+    }
+
+    private String readNode() {
+        return readTx.execute(s -> node());
+    }
+
+    private String node() {
+        return (String) em.createNativeQuery("SELECT name FROM node").getSingleResult();
+    }
+
+    private void replicateHeartbeat() {
+        Long beat = new JdbcTemplate(primary).queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+        new JdbcTemplate(replica).update("MERGE INTO replica_heartbeat (id, beat_at) KEY (id) VALUES (1, ?)", beat);
+    }
+
+    @Test
+    void readOnlyTx_goesToReplica_andWriteTx_goesToPrimary() {
+        monitor.check();
+        replicateHeartbeat();
+        monitor.check();
+        assertTrue(monitor.isUsable());
+
+        assertEquals("replica", readNode());
+        assertEquals("primary", writeTx.execute(s -> node()));
+        // sin transacción: primaria
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    void entityManagerAndJdbcTemplate_shareTheRoutedConnectionInsideATransaction() {
+        monitor.check();
+        replicateHeartbeat();
+        monitor.check();
+
+        assertEquals("replica", readTx.execute(s -> {
+            String viaJpa = node();
+            assertEquals(viaJpa, jdbc.queryForObject("SELECT name FROM node", String.class));
+            return viaJpa;
+        }));
+        writeTx.executeWithoutResult(s -> {
+            em.createNativeQuery("UPDATE node SET name = 'primary2'").executeUpdate();
+            // misma conexión: JdbcTemplate ve el cambio aún sin confirmar
+            assertEquals("primary2", jdbc.queryForObject("SELECT name FROM node", String.class));
+        });
+    }
+
+    @Test
+    void heartbeatTable_isCreatedAtStartup_notOnEveryCheck() {
+        monitor.check();
+        new JdbcTemplate(primary).execute("DROP TABLE replica_heartbeat");
+
+        // check() ya no ejecuta DDL: sin la tabla, el latido falla y se lee de la primaria
+        monitor.check();
+        assertFalse(monitor.isUsable());
+        assertEquals(0, new JdbcTemplate(primary).queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'REPLICA_HEARTBEAT'", Integer.class));
+    }
+
+    @Test
+    void laggingReplica_fallsBackToPrimary() {
+        // latido viejo en la réplica: 10s de retraso
+        new JdbcTemplate(replica).update("INSERT INTO replica_heartbeat VALUES (1, ?)", System.currentTimeMillis() - 10_000);
+        monitor.check();
+
+        assertFalse(monitor.isUsable());
+        assertTrue(monitor.lastLagMillis() >= 10_000);
+        assertEquals("primary", readNode());
+    }
+
+    @Test
+    void replicaDown_fallsBackToPrimary() {
+        new JdbcTemplate(replica).execute("DROP TABLE replica_heartbeat");
+        monitor.check();
+
+        assertFalse(monitor.isUsable());
+        assertEquals("primary", readNode());
+    }
+
+    @Test
+    void readYourWrites_pinsOnlyTheWriterAfterCommit() {
+        monitor.check();
+        replicateHeartbeat();
+        monitor.check();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("pedro@mail.com", null, List.of()));
+        writeTx.executeWithoutResult(s -> em.createNativeQuery("UPDATE node SET name = 'primary2'").executeUpdate());
+        assertEquals("primary2", readNode());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("ana@mail.com", null, List.of()));
+        assertEquals("replica", readNode());
+    }
+
+    @Test
+    void rolledBackWrite_doesNotPin() {
+        monitor.check();
+        replicateHeartbeat();
+        monitor.check();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("pedro@mail.com", null, List.of()));
+        writeTx.executeWithoutResult(s -> {
+            em.createNativeQuery("UPDATE node SET name = 'primary2'").executeUpdate();
+            s.setRollbackOnly();
+        });
+        assertEquals("replica", readNode());
+    }
+}
@@ -0,0 +1,217 @@
+package com.armando.shop_api.idempotency;
+
+import com.armando.shop_api.entity.IdempotencyRecord;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.exception.ConflictException;
+import com.armando.shop_api.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+
+    private IdempotencyRecordRepository repository;
+    private PlatformTransactionManager transactionManager;
+    private IdempotencyStore store;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.findByUserEmailAndIdemKey(any(), any())).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+        transactionManager = mock(PlatformTransactionManager.class);
+        store = new IdempotencyStore(repository, new ObjectMapper(), transactionManager,
+                100, Duration.ofHours(1), Duration.ofSeconds(60));
+    }
+
+    private String createOrder() {
+        return "order-" + executions.incrementAndGet();
+    }
+
+    @Test
+    void sameKeyAndBody_executesOnce_andReplays() {
+        var first = store.execute("pedro@mail.com", "k1", Map.of("qty", 1), String.class, this::createOrder);
+        var second = store.execute("pedro@mail.com", "k1", Map.of("qty", 1), String.class, this::createOrder);
+
+        assertFalse(first.replayed());
+        assertTrue(second.replayed());
+        assertEquals("order-1", second.response());
+        assertEquals(1, executions.get());
+        verify(repository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void sameKeyDifferentBody_throwsBadRequest() {
+        store.execute("pedro@mail.com", "k1", Map.of("qty", 1), String.class, this::createOrder);
+
+        assertThrows(BadRequestException.class, () ->
+                store.execute("pedro@mail.com", "k1", Map.of("qty", 2), String.class, this::createOrder));
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        store.execute("pedro@mail.com", "k1", Map.of("qty", 1), String.class, this::createOrder);
+        var other = store.execute("ana@mail.com", "k1", Map.of("qty", 1), String.class, this::createOrder);
+
+        assertFalse(other.replayed());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void concurrentRequests_waitForFirst_insteadOfExecutingAgain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<IdempotentResult<String>> first = pool.submit(() ->
+                    store.execute("pedro@mail.com", "k1", List.of(1), String.class, () -> {
+                        started.countDown();
+                        await(release);
+                        return createOrder();
+                    }));
+            started.await();
+            Future<IdempotentResult<String>> second = pool.submit(() ->
+                    store.execute("pedro@mail.com", "k1", List.of(1), String.class, this::createOrder));
+
+            Thread.sleep(50);
+            release.countDown();
+
+            assertEquals("order-1", first.get().response());
+            assertEquals("order-1", second.get().response());
+            assertTrue(second.get().replayed());
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedExecution_doesNotConsumeKey() {
+        assertThrows(BadRequestException.class, () ->
+                store.execute("pedro@mail.com", "k1", List.of(1), String.class, () -> {
+                    throw new BadRequestException("Not enough stock");
+                }));
+
+        var retry = store.execute("pedro@mail.com", "k1", List.of(1), String.class, this::createOrder);
+        assertFalse(retry.replayed());
+    }
+
+    @Test
+    void action_runsOutsideTheKeyTransaction_soItsOwnRetriesApply() {
+        var result = store.execute("pedro@mail.com", "k1", List.of(1), String.class, () -> {
+            // la transacción de la clave ya está confirmada y no hay otra abierta
+            verify(transactionManager, times(2)).getTransaction(any()); // búsqueda + toma de la clave
+            verify(transactionManager, times(2)).commit(any());
+            return createOrder();
+        });
+
+        assertEquals("order-1", result.response());
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(saved.capture());
+        assertEquals("\"order-1\"", saved.getValue().getResponseJson());
+    }
+
+    @Test
+    void integrityViolationFromTheAction_propagates_andReleasesTheKey() {
+        var ex = new DataIntegrityViolationException("uk_order_items");
+
+        var thrown = assertThrows(DataIntegrityViolationException.class, () ->
+                store.execute("pedro@mail.com", "k1", List.of(1), String.class, () -> {
+                    throw ex;
+                }));
+
+        assertSame(ex, thrown);
+        verify(repository).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void duplicateKeyInsert_replaysTheStoredResponse_or409WhileItIsPending() {
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_idempotency"));
+        IdempotencyRecord done = record("\"order-7\"");
+        IdempotencyRecord pending = record(null);
+        when(repository.findByUserEmailAndIdemKey(any(), any()))
+                .thenReturn(Optional.empty(), Optional.of(done))
+                .thenReturn(Optional.empty(), Optional.of(pending));
+
+        var replayed = store.execute("pedro@mail.com", "k1", List.of(1), String.class, this::createOrder);
+        assertTrue(replayed.replayed());
+        assertEquals("order-7", replayed.response());
+
+        assertThrows(ConflictException.class, () ->
+                store.execute("pedro@mail.com", "k2", List.of(1), String.class, this::createOrder));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void responseNotStored_afterTheOrderWasCreated_isNeverExecutedAgain() {
+        ArgumentCaptor<IdempotencyRecord> claimed = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        when(repository.save(any())).thenThrow(new QueryTimeoutException("lock wait timeout"));
+
+        // la orden se creó: esta petición la recibe y esta instancia la repite desde memoria
+        var first = store.execute("pedro@mail.com", "k1", List.of(1), String.class, this::createOrder);
+        assertEquals("order-1", first.response());
+        assertTrue(store.execute("pedro@mail.com", "k1", List.of(1), String.class, this::createOrder).replayed());
+
+        // en BD la clave sigue tomada sin respuesta, con la caducidad de ttl y no la de pending-timeout
+        verify(repository).saveAndFlush(claimed.capture());
+        IdempotencyRecord pending = claimed.getValue();
+        pending.setResponseJson(null); // lo que quedó en BD: el UPDATE con la respuesta falló
+        assertTrue(pending.getExpiresAt().isAfter(Instant.now().plus(Duration.ofMinutes(59))));
+
+        // otra instancia: 409 mientras está en curso y también pasado pending-timeout, nunca otra orden
+        when(repository.findByUserEmailAndIdemKey(any(), any())).thenReturn(Optional.of(pending));
+        IdempotencyStore other = new IdempotencyStore(repository, new ObjectMapper(), transactionManager,
+                100, Duration.ofHours(1), Duration.ofSeconds(60));
+        assertThrows(ConflictException.class, () ->
+                other.execute("pedro@mail.com", "k1", List.of(1), String.class, this::createOrder));
+
+        pending.setCreatedAt(Instant.now().minusSeconds(120));
+        var unknown = assertThrows(ConflictException.class, () ->
+                other.execute("pedro@mail.com", "k1", List.of(1), String.class, this::createOrder));
+        assertTrue(unknown.getMessage().contains("unknown"));
+        assertEquals(1, executions.get());
+    }
+
+    private IdempotencyRecord record(String responseJson) {
+        try {
+            return IdempotencyRecord.builder()
+                    .requestHash(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                            .digest(new ObjectMapper().writeValueAsBytes(List.of(1)))))
+                    .responseJson(responseJson)
+                    .createdAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(60))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
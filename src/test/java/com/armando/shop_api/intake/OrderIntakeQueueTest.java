@@ -0,0 +1,213 @@
+package com.armando.shop_api.intake;
+
+import com.armando.shop_api.dto.OrderBatchResponse;
+import com.armando.shop_api.dto.OrderBatchResult;
+import com.armando.shop_api.dto.OrderCreateRequest;
+import com.armando.shop_api.dto.OrderTicketResponse;
+import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.exception.TooManyRequestsException;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.service.OrderBatchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class OrderIntakeQueueTest {
+
+    private static final String PEDRO = "pedro@mail.com";
+
+    private OrderBatchService batchService;
+    private OrderIntakeQueue intake;
+
+    // tamaños de cada alta masiva, en orden de llamada
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final AtomicLong nextOrderId = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        batchService = mock(OrderBatchService.class);
+        when(batchService.createBatch(anyList(), anyString())).thenAnswer(inv -> {
+            List<OrderCreateRequest> orders = inv.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(orders.size());
+            }
+            return created(orders.size());
+        });
+        intake = intake(10);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        intake.stop();
+    }
+
+    @Test
+    void ordersQueuedWhileTheWriterIsBusy_areCommittedTogether() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            List<OrderCreateRequest> orders = inv.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(orders.size());
+            }
+            firstStarted.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return created(orders.size());
+        }).when(batchService).createBatch(anyList(), anyString());
+        intake.start();
+
+        OrderTicketResponse first = intake.submit(order(), PEDRO);
+        assertTrue(firstStarted.await(2, TimeUnit.SECONDS));
+        // el escritor está ocupado con la primera: estas tres esperan en la cola
+        List<OrderTicketResponse> rest = List.of(
+                intake.submit(order(), PEDRO), intake.submit(order(), PEDRO), intake.submit(order(), PEDRO));
+        release.countDown();
+
+        for (OrderTicketResponse t : rest) {
+            assertEquals("CREATED", await(t).status());
+        }
+        assertEquals("CREATED", await(first).status());
+        // group commit: la primera sola, las otras tres en una única alta masiva (una transacción)
+        assertEquals(List.of(1, 3), batchSizes);
+    }
+
+    @Test
+    void ticket_goesFromPending_toCreatedOrRejected_andIsPrivateToItsUser() throws Exception {
+        doReturn(new OrderBatchResponse(0, 1,
+                List.of(new OrderBatchResult(0, null, null, "Not enough stock for product: Mouse"))))
+                .when(batchService).createBatch(anyList(), anyString());
+
+        intake.start();
+        OrderTicketResponse ticket = intake.submit(order(), PEDRO);
+        assertEquals("PENDING", ticket.status());
+
+        OrderTicketResponse done = await(ticket);
+        assertEquals("REJECTED", done.status());
+        assertEquals("Not enough stock for product: Mouse", done.error());
+        assertNull(done.orderId());
+
+        assertThrows(NotFoundException.class, () -> intake.status(ticket.trackingId(), "ana@mail.com", Duration.ZERO));
+        assertThrows(NotFoundException.class, () -> intake.status("missing", PEDRO, Duration.ZERO));
+    }
+
+    @Test
+    void failingGroup_isRetriedOrderByOrder_soOneBadOrderDoesNotRejectTheRest() throws Exception {
+        // un lote de más de una orden falla entero (p. ej. un deadlock); sola, solo falla la orden vacía
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            List<OrderCreateRequest> orders = inv.getArgument(0);
+            release.await(2, TimeUnit.SECONDS);
+            if (orders.size() > 1 || orders.get(0).getItems().isEmpty()) {
+                throw new IllegalStateException("deadlock");
+            }
+            return created(1);
+        }).when(batchService).createBatch(anyList(), anyString());
+        intake.start();
+
+        OrderTicketResponse blocker = intake.submit(order(), PEDRO);
+        OrderTicketResponse good = intake.submit(order(), PEDRO);
+        OrderCreateRequest empty = new OrderCreateRequest();
+        empty.setItems(List.of());
+        OrderTicketResponse bad = intake.submit(empty, PEDRO);
+        release.countDown();
+
+        assertEquals("CREATED", await(blocker).status());
+        assertEquals("CREATED", await(good).status());
+        OrderTicketResponse rejected = await(bad);
+        assertEquals("REJECTED", rejected.status());
+        assertEquals("deadlock", rejected.error());
+    }
+
+    @Test
+    void stop_writesWhatIsQueued_thenRejectsNewOrders() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await(2, TimeUnit.SECONDS);
+            return created(((List<?>) inv.getArgument(0)).size());
+        }).when(batchService).createBatch(anyList(), anyString());
+        intake.start();
+        OrderTicketResponse a = intake.submit(order(), PEDRO);
+        OrderTicketResponse b = intake.submit(order(), PEDRO);
+        release.countDown();
+
+        intake.stop();
+
+        // stop vuelve con todo escrito: nada queda PENDING
+        assertEquals("CREATED", intake.status(a.trackingId(), PEDRO, Duration.ZERO).get().status());
+        assertEquals("CREATED", intake.status(b.trackingId(), PEDRO, Duration.ZERO).get().status());
+        assertThrows(TooManyRequestsException.class, () -> intake.submit(order(), PEDRO));
+        assertEquals(0, intake.stats().get("queued"));
+    }
+
+    @Test
+    void submit_beforeStartOrWhenFull_isRejectedWith429() {
+        assertThrows(TooManyRequestsException.class, () -> intake.submit(order(), PEDRO));
+
+        // cola de 1 con el escritor bloqueado en la primera orden
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await(2, TimeUnit.SECONDS);
+            return created(1);
+        }).when(batchService).createBatch(anyList(), anyString());
+        OrderIntakeQueue small = intake(1);
+        small.start();
+        try {
+            small.submit(order(), PEDRO);
+            // el escritor toma la primera y se queda esperando; la segunda ocupa la cola; la tercera no cabe
+            awaitQueued(small, 0);
+            small.submit(order(), PEDRO);
+            assertThrows(TooManyRequestsException.class, () -> small.submit(order(), PEDRO));
+        } finally {
+            release.countDown();
+            assertDoesNotThrow(small::stop);
+        }
+    }
+
+    private OrderIntakeQueue intake(int capacity) {
+        return new OrderIntakeQueue(batchService, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                true, capacity, 100, Duration.ofMinutes(10));
+    }
+
+    private OrderBatchResponse created(int n) {
+        List<OrderBatchResult> results = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            results.add(new OrderBatchResult(i, nextOrderId.getAndIncrement(), Money.valueOf("10.00"), null));
+        }
+        return new OrderBatchResponse(n, 0, results);
+    }
+
+    private OrderTicketResponse await(OrderTicketResponse ticket) throws Exception {
+        return intake.status(ticket.trackingId(), PEDRO, Duration.ofSeconds(3)).get();
+    }
+
+    private static void awaitQueued(OrderIntakeQueue queue, int expected) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!Integer.valueOf(expected).equals(queue.stats().get("queued")) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, queue.stats().get("queued"));
+    }
+
+    private static OrderCreateRequest order() {
+        var item = new com.armando.shop_api.dto.OrderItemCreateRequest();
+        item.setProductId(3L);
+        item.setQuantity(1);
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item));
+        return req;
+    }
+}
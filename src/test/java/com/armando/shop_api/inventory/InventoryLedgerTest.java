@@ -0,0 +1,234 @@
+package com.armando.shop_api.inventory;
+
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.entity.HotStockAllocation;
+import com.armando.shop_api.repository.HotStockAllocationRepository;
+import com.armando.shop_api.repository.OrderItemRepository;
+import com.armando.shop_api.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class InventoryLedgerTest {
+
+    private static final long PRODUCT = 3L;
+    private static final long ALLOCATION = 1L;
+    private static final int CHUNK = 10;
+
+    private ProductRepository productRepository;
+    private HotStockAllocationRepository allocationRepository;
+    private OrderItemRepository orderItemRepository;
+    private ProductCache productCache;
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        allocationRepository = mock(HotStockAllocationRepository.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+        productCache = mock(ProductCache.class);
+
+        when(productRepository.existsById(PRODUCT)).thenReturn(true);
+        when(productRepository.findStockById(PRODUCT)).thenReturn(Optional.of(0));
+        when(orderItemRepository.findMaxId()).thenReturn(50L);
+        when(allocationRepository.save(any())).thenAnswer(inv -> {
+            HotStockAllocation a = inv.getArgument(0);
+            a.setId(ALLOCATION);
+            return a;
+        });
+
+        ledger = ledger(true);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ledger.shutdown();
+    }
+
+    @Test
+    void tryReserve_takesFromCounter_andLeavesShortfallToTheDatabasePath() {
+        when(productRepository.decrementStock(PRODUCT, CHUNK)).thenReturn(1, 0);
+        ledger.activate(PRODUCT);
+        awaitRemaining(CHUNK);
+
+        assertTrue(ledger.tryReserve(PRODUCT, 4));
+        assertEquals(6, remaining());
+
+        // no alcanza: false y el llamador usa el UPDATE condicional; el contador no cambia
+        assertFalse(ledger.tryReserve(PRODUCT, 7));
+        assertEquals(6, remaining());
+
+        // producto no caliente o ledger desactivado: siempre por BD
+        assertFalse(ledger.tryReserve(9L, 1));
+        assertFalse(ledger(false).tryReserve(PRODUCT, 1));
+    }
+
+    @Test
+    void refill_takesAWholeChunk_whenStockAllows() {
+        when(productRepository.decrementStock(PRODUCT, CHUNK)).thenReturn(1, 0);
+
+        ledger.activate(PRODUCT);
+
+        awaitRemaining(CHUNK);
+        verify(allocationRepository).addAllocated(ALLOCATION, CHUNK);
+        verify(productCache).evict(PRODUCT);
+    }
+
+    @Test
+    void refill_takesTheWholeRemainder_whenLessThanAChunkIsLeft() {
+        when(productRepository.decrementStock(PRODUCT, CHUNK)).thenReturn(0);
+        when(productRepository.findStockById(PRODUCT)).thenReturn(Optional.of(7), Optional.of(0));
+        when(productRepository.decrementStock(PRODUCT, 7)).thenReturn(1);
+
+        ledger.activate(PRODUCT);
+
+        awaitRemaining(7);
+        verify(allocationRepository).addAllocated(ALLOCATION, 7);
+    }
+
+    @Test
+    void rolledBackReservation_andCommittedRelease_giveUnitsBackToTheCounter() {
+        when(productRepository.decrementStock(PRODUCT, CHUNK)).thenReturn(1, 0);
+        ledger.activate(PRODUCT);
+        awaitRemaining(CHUNK);
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(ledger.tryReserve(PRODUCT, 4));
+        assertEquals(6, remaining());
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(CHUNK, remaining());
+
+        // release fuera de transacción: vuelve en el acto
+        assertTrue(ledger.release(PRODUCT, 3));
+        assertEquals(CHUNK + 3, remaining());
+    }
+
+    @Test
+    void giveBackAfterDeactivate_goesToProductsStock() {
+        when(productRepository.decrementStock(PRODUCT, CHUNK)).thenReturn(1, 0);
+        ledger.activate(PRODUCT);
+        awaitRemaining(CHUNK);
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(ledger.tryReserve(PRODUCT, 4));
+
+        ledger.deactivate(PRODUCT);
+        verify(productRepository).incrementStock(PRODUCT, 6); // lo no vendido
+        verify(allocationRepository).deleteById(ALLOCATION);
+
+        // el pedido se revierte con el slot ya cerrado: sus 4 unidades van a la BD
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(productRepository, timeout(2000)).incrementStock(PRODUCT, 4);
+        assertFalse(ledger.release(PRODUCT, 1));
+    }
+
+    @Test
+    void databaseStockFor_leavesOutWhatTheLedgerHolds_andTrimsTheExcess() {
+        when(productRepository.decrementStock(PRODUCT, CHUNK)).thenReturn(1, 0);
+        ledger.activate(PRODUCT);
+        awaitRemaining(CHUNK);
+
+        // stock total 25 con 10 en el ledger: la BD guarda 15
+        assertEquals(15, ledger.databaseStockFor(PRODUCT, 25));
+        assertEquals(CHUNK, remaining());
+        assertEquals(25, ledger.databaseStockFor(9L, 25));
+
+        // total 4 con 10 en el ledger: la BD queda a 0 y salen 6 del contador y de la asignación
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(0, ledger.databaseStockFor(PRODUCT, 4));
+        assertEquals(4, remaining());
+        verify(allocationRepository).addAllocated(ALLOCATION, -6);
+
+        // si la importación se revierte, las 6 unidades vuelven al contador
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(CHUNK, remaining());
+    }
+
+    @Test
+    void start_reconcilesAllocationsLeftByAPreviousRun() {
+        HotStockAllocation stale = HotStockAllocation.builder()
+                .id(7L).owner("test").productId(PRODUCT).allocated(100).sinceItemId(50).build();
+        when(allocationRepository.findByOwner("test")).thenReturn(List.of(stale));
+        when(orderItemRepository.sumQuantitySince(PRODUCT, 50)).thenReturn(30L);
+
+        ledger.start();
+
+        // asignado 100, vendido 30 → vuelven 70
+        verify(productRepository).incrementStock(PRODUCT, 70);
+        verify(allocationRepository).delete(stale);
+        verify(productCache).evict(PRODUCT);
+        assertTrue(ledger.stats().isEmpty());
+    }
+
+    @Test
+    void start_afterACrash_doesNotCountDatabaseFallbackReservationsAsLedgerSales() throws InterruptedException {
+        when(productRepository.decrementStock(PRODUCT, CHUNK)).thenReturn(1, 0);
+        ledger.activate(PRODUCT);
+        awaitRemaining(CHUNK);
+
+        // 4 salen del contador; 7 no caben y el llamador las descuenta con el UPDATE condicional
+        assertTrue(ledger.tryReserve(PRODUCT, 4));
+        assertFalse(ledger.tryReserve(PRODUCT, 7));
+        ledger.reservedFromDatabase(PRODUCT, 7);
+        verify(allocationRepository).addFallbackReserved(ALLOCATION, 7);
+        // otro producto: no es caliente, nada que anotar
+        ledger.reservedFromDatabase(9L, 2);
+        verify(allocationRepository, never()).addFallbackReserved(any(), eq(2L));
+
+        // la instancia cae: la asignación queda como está en BD y order_items tiene las 11 unidades
+        HotStockAllocation stale = HotStockAllocation.builder()
+                .id(ALLOCATION).owner("test").productId(PRODUCT).allocated(CHUNK).fallbackReserved(7)
+                .sinceItemId(50).build();
+        when(allocationRepository.findByOwner("test")).thenReturn(List.of(stale));
+        when(orderItemRepository.sumQuantitySince(PRODUCT, 50)).thenReturn(11L);
+
+        InventoryLedger restarted = ledger(true);
+        restarted.start();
+        restarted.shutdown();
+
+        // del ledger se vendieron 4 de 10: vuelven las 6 que quedaban en el contador
+        verify(productRepository).incrementStock(PRODUCT, 6);
+    }
+
+    private InventoryLedger ledger(boolean enabled) {
+        return new InventoryLedger(productRepository, allocationRepository, orderItemRepository, productCache,
+                mock(PlatformTransactionManager.class), enabled, CHUNK, "test", "");
+    }
+
+    private int remaining() {
+        return ledger.stats().stream()
+                .filter(s -> s.productId() == PRODUCT)
+                .findFirst()
+                .map(HotSkuStats::remaining)
+                .orElse(-1);
+    }
+
+    // la recarga corre en el hilo del ledger
+    private void awaitRemaining(int expected) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (remaining() != expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, remaining());
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        syncs.forEach(s -> s.afterCompletion(status));
+    }
+}
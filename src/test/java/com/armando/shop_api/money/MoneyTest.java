@@ -0,0 +1,54 @@
+package com.armando.shop_api.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void parsesExactly_andRejectsFractionsOfCents() {
+        assertEquals(1999, Money.valueOf("19.99").cents());
+        assertEquals(1990, Money.valueOf("19.9").cents());
+        assertEquals(Money.valueOf("19.90"), Money.valueOf("19.9"));
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("19.999"));
+    }
+
+    @Test
+    void arithmetic_isExact_andFailsOnOverflow() {
+        assertEquals(Money.valueOf("0.30"), Money.valueOf("0.10").plus(Money.valueOf("0.20")));
+        assertEquals(Money.valueOf("7500.00"), Money.valueOf("2500.00").times(3));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE / 2).times(3));
+    }
+
+    @Test
+    void formatsWithTwoDecimals() {
+        assertEquals("2500.00", Money.valueOf("2500").toString());
+        assertEquals("0.05", Money.ofCents(5).toString());
+        assertEquals("-1.50", Money.ofCents(-150).toString());
+        assertEquals(new BigDecimal("19.99"), Money.ofCents(1999).toBigDecimal());
+    }
+
+    @Test
+    void json_roundTripsAsNumber() throws Exception {
+        assertEquals("2500.00", mapper.writeValueAsString(Money.ofCents(250000)));
+        assertEquals(Money.ofCents(1999), mapper.readValue("19.99", Money.class));
+        assertEquals(Money.ofCents(1999), mapper.readValue("\"19.99\"", Money.class));
+        assertThrows(InvalidFormatException.class, () -> mapper.readValue("19.999", Money.class));
+    }
+
+    @Test
+    void converter_mapsToDecimalColumn() {
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(new BigDecimal("12.50"), converter.convertToDatabaseColumn(Money.ofCents(1250)));
+        assertEquals(Money.ofCents(1250), converter.convertToEntityAttribute(new BigDecimal("12.5000")));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
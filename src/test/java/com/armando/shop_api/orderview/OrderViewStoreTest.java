@@ -0,0 +1,112 @@
+package com.armando.shop_api.orderview;
+
+import com.armando.shop_api.entity.Order;
+import com.armando.shop_api.entity.OrderStatus;
+import com.armando.shop_api.entity.User;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.repository.OrderRepository;
+import com.armando.shop_api.repository.OrderViewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// order_views en H2 (modo MySQL); repositorios simulados
+class OrderViewStoreTest {
+
+    private JdbcTemplate jdbc;
+    private OrderRepository orderRepository;
+    private OrderViewRepository viewRepository;
+    private OrderViewStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:orderviews;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("""
+                CREATE TABLE order_views (
+                    order_id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, user_email VARCHAR(150) NOT NULL,
+                    total DECIMAL(12, 2) NOT NULL, item_count INT NOT NULL, items CLOB NOT NULL,
+                    created_at TIMESTAMP, created_by VARCHAR(150), updated_at TIMESTAMP, updated_by VARCHAR(150))
+                """);
+
+        orderRepository = mock(OrderRepository.class);
+        viewRepository = mock(OrderViewRepository.class);
+        when(viewRepository.count()).thenReturn(0L);
+        when(orderRepository.countByStatus(OrderStatus.ACTIVE)).thenReturn(2L);
+        when(orderRepository.findDetailedByIdIn(any())).thenAnswer(inv ->
+                ((Collection<Long>) inv.getArgument(0)).stream().map(OrderViewStoreTest::order).toList());
+
+        store = new OrderViewStore(jdbc, new ObjectMapper(), orderRepository, viewRepository,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void backfill_keepsAViewWrittenMeanwhile_insteadOfAbortingStartup() {
+        when(orderRepository.findMaxId()).thenReturn(2L);
+        // la orden 1 recibió su vista (con 3 líneas) después de la consulta de órdenes sin vista
+        when(viewRepository.findOrderIdsWithoutView(0, 1000)).thenAnswer(inv -> {
+            jdbc.update("INSERT INTO order_views VALUES (1, 7, 'pedro@mail.com', 30.00, 3, '[]', NULL, NULL, NULL, NULL)");
+            return List.of(1L, 2L);
+        });
+
+        assertDoesNotThrow(store::backfill);
+
+        assertTrue(store.backfilled());
+        assertEquals(List.of(1L, 2L), jdbc.queryForList("SELECT order_id FROM order_views ORDER BY order_id", Long.class));
+        assertEquals(3, jdbc.queryForObject("SELECT item_count FROM order_views WHERE order_id = 1", Integer.class));
+    }
+
+    @Test
+    void backfill_failingChunk_isLogged_andTheNextChunksStillRun() {
+        when(orderRepository.findMaxId()).thenReturn(2500L);
+        when(viewRepository.findOrderIdsWithoutView(anyLong(), anyLong())).thenReturn(List.of());
+        when(viewRepository.findOrderIdsWithoutView(0, 1000)).thenThrow(new QueryTimeoutException("lock wait timeout"));
+        when(viewRepository.findOrderIdsWithoutView(2000, 3000)).thenReturn(List.of(2100L));
+
+        assertDoesNotThrow(store::backfill);
+
+        verify(viewRepository).findOrderIdsWithoutView(1000, 2000);
+        // faltan vistas del primer tramo: los listados siguen leyendo las entidades
+        assertFalse(store.backfilled());
+        assertEquals(List.of(2100L), jdbc.queryForList("SELECT order_id FROM order_views", Long.class));
+    }
+
+    @Test
+    void backfill_databaseUnavailable_doesNotFailStartup() {
+        when(viewRepository.count()).thenThrow(new QueryTimeoutException("connection refused"));
+
+        assertDoesNotThrow(store::backfill);
+        assertFalse(store.backfilled());
+        verify(viewRepository, never()).findOrderIdsWithoutView(anyLong(), anyLong());
+    }
+
+    @Test
+    void insert_outsideTheBackfill_stillRejectsADuplicate() {
+        store.insert(OrderViewStore.toResponse(order(1L)));
+
+        assertThrows(RuntimeException.class, () -> store.insert(OrderViewStore.toResponse(order(1L))));
+    }
+
+    private static Order order(Long id) {
+        User user = User.builder().id(7L).email("pedro@mail.com").build();
+        return Order.builder().id(id).user(user).total(Money.valueOf("10.00")).build();
+    }
+}
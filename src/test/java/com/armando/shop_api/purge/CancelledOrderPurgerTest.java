@@ -0,0 +1,63 @@
+package com.armando.shop_api.purge;
+
+import com.armando.shop_api.repository.OrderItemRepository;
+import com.armando.shop_api.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CancelledOrderPurgerTest {
+
+    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+    }
+
+    @Test
+    void purge_deletesLinesThenOrders_untilAShortBatch() {
+        when(orderRepository.findPurgeable(any(), any())).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(orderRepository.deleteByIdIn(List.of(1L, 2L))).thenReturn(2);
+        when(orderRepository.deleteByIdIn(List.of(3L))).thenReturn(1);
+
+        assertEquals(3, purger(2, 10).purge());
+
+        verify(orderItemRepository).deleteByOrderIdIn(List.of(1L, 2L));
+        verify(orderItemRepository).deleteByOrderIdIn(List.of(3L));
+        verify(orderRepository, times(2)).findPurgeable(any(), any());
+    }
+
+    @Test
+    void purge_stopsAtMaxBatches_andLeavesTheRestForTheNextRun() {
+        // siempre hay un lote lleno: antes era un bucle sin fin en el hilo del planificador
+        when(orderRepository.findPurgeable(any(), any())).thenReturn(List.of(1L, 2L));
+        when(orderRepository.deleteByIdIn(any())).thenReturn(2);
+
+        assertEquals(8, purger(2, 4).purge());
+        verify(orderRepository, times(4)).findPurgeable(any(), any());
+    }
+
+    @Test
+    void purge_nothingToDelete_runsOneQuery() {
+        when(orderRepository.findPurgeable(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, purger(2, 4).purge());
+        verify(orderRepository, never()).deleteByIdIn(any());
+        verifyNoInteractions(orderItemRepository);
+    }
+
+    private CancelledOrderPurger purger(int batchSize, int maxBatches) {
+        return new CancelledOrderPurger(orderRepository, orderItemRepository, mock(PlatformTransactionManager.class),
+                Duration.ofDays(30), batchSize, maxBatches);
+    }
+}
@@ -0,0 +1,64 @@
+package com.armando.shop_api.repository;
+
+import com.armando.shop_api.entity.Product;
+import com.armando.shop_api.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// findPage contra H2 embebido: el keyset y los filtros son de la consulta, no del servicio
+@DataJpaTest
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository repo;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // precios 10, 20, 30, 40, 50; los pares sin stock
+        for (int i = 1; i <= 5; i++) {
+            Product p = new Product();
+            p.setName("Producto " + i);
+            p.setPrice(Money.valueOf(i * 10 + ".00"));
+            p.setStock(i % 2 == 0 ? 0 : i);
+            ids.add(repo.save(p).getId());
+        }
+    }
+
+    @Test
+    void keyset_startsAfterTheCursor_inIdOrder() {
+        assertEquals(ids.subList(0, 3), idsOf(repo.findPage(0L, null, null, false, Limit.of(3))));
+        assertEquals(ids.subList(2, 5), idsOf(repo.findPage(ids.get(1), null, null, false, Limit.of(10))));
+        // cursor en el último id: página vacía
+        assertEquals(List.of(), idsOf(repo.findPage(ids.get(4), null, null, false, Limit.of(10))));
+    }
+
+    @Test
+    void priceRange_isInclusive_onBothEnds() {
+        List<Product> rows = repo.findPage(0L, Money.valueOf("20.00"), Money.valueOf("40.00"), false, Limit.of(10));
+        assertEquals(ids.subList(1, 4), idsOf(rows));
+
+        assertEquals(ids.subList(3, 5), idsOf(repo.findPage(0L, Money.valueOf("40.00"), null, false, Limit.of(10))));
+        assertEquals(ids.subList(0, 1), idsOf(repo.findPage(0L, null, Money.valueOf("10.00"), false, Limit.of(10))));
+    }
+
+    @Test
+    void inStock_skipsSoldOutProducts_andCombinesWithCursorAndPrice() {
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(4)), idsOf(repo.findPage(0L, null, null, true, Limit.of(10))));
+        assertEquals(List.of(ids.get(2)),
+                idsOf(repo.findPage(ids.get(0), null, Money.valueOf("40.00"), true, Limit.of(10))));
+    }
+
+    private static List<Long> idsOf(List<Product> rows) {
+        return rows.stream().map(Product::getId).toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.armando.shop_api.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryAspectTest {
+
+    static class Target {
+        final AtomicInteger calls = new AtomicInteger();
+        int failures;
+
+        @RetryOnConflict(maxAttempts = 3, backoffMs = 1, maxBackoffMs = 2)
+        public String run() {
+            if (calls.incrementAndGet() <= failures) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "ok";
+        }
+    }
+
+    private static Target proxy(Target target, OptimisticRetryAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @Test
+    void retriesUntilSuccess_withinMaxAttempts() {
+        Target target = new Target();
+        target.failures = 2;
+        OptimisticRetryAspect aspect = new OptimisticRetryAspect(0.1, 100);
+
+        assertEquals("ok", proxy(target, aspect).run());
+        assertEquals(3, target.calls.get());
+
+        RetryStats stats = aspect.stats().get("Target.run");
+        assertEquals(1, stats.calls());
+        assertEquals(2, stats.conflicts());
+        assertEquals(2, stats.retries());
+        assertEquals(0, stats.exhausted());
+    }
+
+    @Test
+    void givesUp_afterMaxAttempts() {
+        Target target = new Target();
+        target.failures = 5;
+        OptimisticRetryAspect aspect = new OptimisticRetryAspect(0.1, 100);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> proxy(target, aspect).run());
+        assertEquals(3, target.calls.get());
+        assertEquals(1, aspect.stats().get("Target.run").exhausted());
+    }
+
+    @Test
+    void emptyBudget_disablesRetries() {
+        Target target = new Target();
+        target.failures = 1;
+        OptimisticRetryAspect aspect = new OptimisticRetryAspect(0.0, 0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> proxy(target, aspect).run());
+        assertEquals(1, target.calls.get());
+    }
+}
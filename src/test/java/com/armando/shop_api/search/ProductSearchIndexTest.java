@@ -0,0 +1,53 @@
+package com.armando.shop_api.search;
+
+import com.armando.shop_api.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(mock(ProductRepository.class));
+        index.put(1L, "Laptop Gamer 15\"");
+        index.put(2L, "Mochila para laptop");
+        index.put(3L, "Ratón inalámbrico");
+        index.put(4L, "Laptop");
+    }
+
+    @Test
+    void search_prefix_ranksExactAndLeadingMatchesFirst() {
+        assertEquals(List.of(4L, 1L, 2L), index.search("lap", 10));
+        assertEquals(List.of(4L, 1L, 2L), index.search("laptop", 10));
+    }
+
+    @Test
+    void search_allTermsMustMatch_ignoringCaseAndAccents() {
+        assertEquals(List.of(2L), index.search("LAPTOP moch", 10));
+        assertEquals(List.of(3L), index.search("raton", 10));
+        assertTrue(index.search("laptop raton", 10).isEmpty());
+    }
+
+    @Test
+    void put_and_remove_updateIndexIncrementally() {
+        index.put(4L, "Tablet");
+        assertEquals(List.of(1L, 2L), index.search("laptop", 10));
+        assertEquals(List.of(4L), index.search("tab", 10));
+
+        index.remove(1L);
+        assertEquals(List.of(2L), index.search("laptop", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void search_respectsLimit() {
+        assertEquals(1, index.search("laptop", 1).size());
+    }
+}
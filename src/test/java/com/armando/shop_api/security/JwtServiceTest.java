@@ -0,0 +1,68 @@
+package com.armando.shop_api.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final UserPrincipal PEDRO = new UserPrincipal(2L, "Pedro", "pedro@mail.com", "hash", "USER", 0);
+
+    @Test
+    void verify_secondCallIsServedFromCache() {
+        JwtService jwt = new JwtService(3_600_000, 100, Duration.ofMinutes(5));
+        String token = jwt.generateToken(PEDRO);
+
+        VerifiedToken first = jwt.verify(token).orElseThrow();
+        VerifiedToken second = jwt.verify(token).orElseThrow();
+
+        assertEquals("pedro@mail.com", first.subject());
+        assertSame(first, second);
+        assertEquals(1, jwt.cacheStats().hits());
+        assertEquals(1, jwt.cacheStats().misses());
+    }
+
+    @Test
+    void verify_claimsRebuildThePrincipal_withoutUserLookup() {
+        JwtService jwt = new JwtService(3_600_000, 100, Duration.ofMinutes(5));
+        UserPrincipal admin = new UserPrincipal(7L, "Ana Admin", "admin@mail.com", "hash", "ADMIN", 3);
+
+        UserPrincipal principal = UserPrincipal.fromToken(jwt.verify(jwt.generateToken(admin)).orElseThrow());
+
+        assertEquals(7L, principal.getId());
+        assertEquals("admin@mail.com", principal.getUsername());
+        assertEquals("Ana Admin", principal.getFullName());
+        assertEquals(3, principal.getTokenVersion());
+        assertEquals("ROLE_ADMIN", principal.getAuthorities().iterator().next().getAuthority());
+        assertNull(principal.getPassword());
+    }
+
+    @Test
+    void verify_tamperedPayloadOfCachedToken_isRejected() {
+        JwtService jwt = new JwtService(3_600_000, 100, Duration.ofMinutes(5));
+        String token = jwt.generateToken(PEDRO);
+        assertTrue(jwt.verify(token).isPresent());
+
+        // misma firma con otro payload: otra clave de caché, y la firma no cuadra
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "xx." + parts[2];
+
+        assertTrue(jwt.verify(forged).isEmpty());
+        assertTrue(jwt.verify("not-a-jwt").isEmpty());
+    }
+
+    @Test
+    void verify_cachedTokenPastItsExpiry_isRejected() throws InterruptedException {
+        // exp tiene resolución de segundos: con 2 s de vida caduca entre 1 y 2 s después de emitirlo
+        JwtService jwt = new JwtService(2_000, 100, Duration.ofMinutes(5));
+        String token = jwt.generateToken(PEDRO);
+        assertTrue(jwt.verify(token).isPresent());
+
+        Thread.sleep(2_100);
+
+        assertTrue(jwt.verify(token).isEmpty());
+        assertEquals(0, jwt.cacheStats().size());
+    }
+}
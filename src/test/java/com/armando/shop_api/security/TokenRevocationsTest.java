@@ -0,0 +1,45 @@
+package com.armando.shop_api.security;
+
+import com.armando.shop_api.dto.TokenVersionRow;
+import com.armando.shop_api.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationsTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TokenRevocations revocations = new TokenRevocations(userRepository, 3_600_000);
+
+    @Test
+    void revoke_rejectsOlderVersionsOnly() {
+        revocations.revoke(2L, 1, Instant.now());
+
+        assertTrue(revocations.isRevoked(2L, 0));
+        assertFalse(revocations.isRevoked(2L, 1));
+        assertFalse(revocations.isRevoked(3L, 0));
+    }
+
+    @Test
+    void refresh_loadsRecentRevocations_neverLowersAVersion_andForgetsExpiredOnes() {
+        Instant now = Instant.now();
+        revocations.revoke(2L, 5, now);
+        revocations.revoke(9L, 1, now.minus(Duration.ofHours(2))); // ya no hay tokens anteriores vigentes
+        when(userRepository.findRevokedSince(any())).thenReturn(List.of(
+                new TokenVersionRow(2L, 4, now.minusSeconds(30)),   // lectura atrasada respecto a la local
+                new TokenVersionRow(3L, 2, now.minusSeconds(10))));
+
+        revocations.refresh();
+
+        assertTrue(revocations.isRevoked(2L, 4));
+        assertTrue(revocations.isRevoked(3L, 1));
+        assertFalse(revocations.isRevoked(9L, 0));
+        assertEquals(2, revocations.size());
+    }
+}
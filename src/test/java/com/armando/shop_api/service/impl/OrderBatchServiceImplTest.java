@@ -0,0 +1,206 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.analytics.SalesDelta;
+import com.armando.shop_api.analytics.SalesRollupStore;
+import com.armando.shop_api.analytics.SalesRollupStore.RebuildFence;
+import com.armando.shop_api.dto.OrderCreateRequest;
+import com.armando.shop_api.dto.OrderItemCreateRequest;
+import com.armando.shop_api.entity.Product;
+import com.armando.shop_api.entity.User;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.orderview.OrderViewStore;
+import com.armando.shop_api.repository.ProductRepository;
+import com.armando.shop_api.repository.UserRepository;
+import com.armando.shop_api.service.InventoryService;
+import com.armando.shop_api.service.UserOrderSummaryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchServiceImplTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    InventoryService inventoryService;
+
+    @Mock
+    JdbcTemplate jdbc;
+
+    @Mock
+    UserOrderSummaryService summaryService;
+
+    @Mock
+    SalesRollupStore salesRollups;
+
+    @Mock
+    OrderViewStore orderViews;
+
+    @InjectMocks
+    OrderBatchServiceImpl batchService;
+
+    private Product laptop;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(4L);
+        user.setEmail("pedro@mail.com");
+        when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
+
+        laptop = product(3L, "Laptop", "2500.00");
+        mouse = product(5L, "Mouse", "20.00");
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop, mouse));
+    }
+
+    @Test
+    void enoughStock_reservesOncePerProduct_forWholeBatch() {
+        when(inventoryService.reserve(anyLong(), anyInt())).thenReturn(true);
+        stubOrderKeys(100L, 101L);
+
+        var res = batchService.createBatch(List.of(
+                order(item(3L, 1), item(5L, 2)),
+                order(item(5L, 1))), "pedro@mail.com");
+
+        assertEquals(2, res.created());
+        assertEquals(0, res.rejected());
+        assertEquals(100L, res.results().get(0).orderId());
+        assertEquals(Money.valueOf("2540.00"), res.results().get(0).total());
+        assertEquals(101L, res.results().get(1).orderId());
+
+        verify(inventoryService).reserve(3L, 1);
+        verify(inventoryService).reserve(5L, 3);
+        verifyNoMoreInteractions(inventoryService);
+        verify(jdbc).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void scarceProduct_isAllocatedPerOrder_andRejectedOrderReturnsItsBulkShare() {
+        when(inventoryService.reserve(5L, 3)).thenReturn(true);   // bloque de mouse: ok
+        when(inventoryService.reserve(3L, 2)).thenReturn(false);  // bloque de laptop: no alcanza
+        when(inventoryService.reserve(3L, 1)).thenReturn(true, false);
+        stubOrderKeys(100L);
+
+        var res = batchService.createBatch(List.of(
+                order(item(3L, 1), item(5L, 1)),
+                order(item(3L, 1), item(5L, 2))), "pedro@mail.com");
+
+        assertEquals(1, res.created());
+        assertEquals(1, res.rejected());
+        assertNull(res.results().get(1).orderId());
+        assertEquals("Not enough stock for product: Laptop", res.results().get(1).error());
+
+        // la orden rechazada devuelve los 2 mouse que se reservaron en bloque
+        verify(inventoryService).release(5L, 2);
+        verify(inventoryService, never()).release(eq(3L), anyInt());
+    }
+
+    @Test
+    void overflowingOrder_isRejectedAlone_andBatchDemandDoesNotWrap() {
+        when(inventoryService.reserve(5L, 1)).thenReturn(true);
+        stubOrderKeys(100L);
+
+        var res = batchService.createBatch(List.of(
+                order(item(3L, Integer.MAX_VALUE), item(3L, 2)),
+                order(item(5L, 1))), "pedro@mail.com");
+
+        assertEquals(1, res.created());
+        assertEquals("Quantity too large", res.results().get(0).error());
+        assertEquals(100L, res.results().get(1).orderId());
+        verify(inventoryService).reserve(5L, 1);
+        verifyNoMoreInteractions(inventoryService);
+    }
+
+    @Test
+    void batchDemandAboveIntRange_goesToPerOrderAllocation_insteadOfWrapping() {
+        when(inventoryService.reserve(3L, Integer.MAX_VALUE)).thenReturn(false);
+        when(inventoryService.reserve(3L, 2)).thenReturn(true);
+        stubOrderKeys(100L);
+
+        var res = batchService.createBatch(List.of(
+                order(item(3L, Integer.MAX_VALUE)),
+                order(item(3L, 2))), "pedro@mail.com");
+
+        assertEquals(1, res.created());
+        assertEquals(1, res.rejected());
+        assertEquals(100L, res.results().get(1).orderId());
+        // nunca se pide la suma desbordada (negativa)
+        verify(inventoryService, never()).reserve(eq(3L), intThat(q -> q <= 0));
+    }
+
+    @Test
+    void ordersPendingForARunningRebuild_areLeftOutOfTheSalesDelta() {
+        when(inventoryService.reserve(anyLong(), anyInt())).thenReturn(true);
+        stubOrderKeys(100L, 101L);
+        // la reconstrucción llega hasta 100 y aún no lo ha leído: lo contará ella
+        when(salesRollups.fence()).thenReturn(new RebuildFence(100, 50));
+
+        batchService.createBatch(List.of(
+                order(item(3L, 1)),
+                order(item(5L, 2))), "pedro@mail.com");
+
+        ArgumentCaptor<SalesDelta> sales = ArgumentCaptor.forClass(SalesDelta.class);
+        verify(salesRollups).apply(sales.capture());
+        assertEquals(1, sales.getValue().orders());
+        assertEquals(2, sales.getValue().units());
+        assertEquals(Set.of(5L), sales.getValue().products().keySet());
+    }
+
+    private void stubOrderKeys(Long... ids) {
+        lenient().when(salesRollups.fence()).thenReturn(RebuildFence.NONE);
+        doAnswer(inv -> {
+            KeyHolder keys = inv.getArgument(2);
+            for (Long id : ids) {
+                keys.getKeyList().add(Map.of("id", id));
+            }
+            return new int[ids.length];
+        }).when(jdbc).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+    }
+
+    private static Product product(Long id, String name, String price) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName(name);
+        p.setPrice(Money.valueOf(price));
+        p.setStock(10);
+        return p;
+    }
+
+    private static OrderCreateRequest order(OrderItemCreateRequest... items) {
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(items));
+        return req;
+    }
+
+    private static OrderItemCreateRequest item(Long productId, int quantity) {
+        OrderItemCreateRequest it = new OrderItemCreateRequest();
+        it.setProductId(productId);
+        it.setQuantity(quantity);
+        return it;
+    }
+}
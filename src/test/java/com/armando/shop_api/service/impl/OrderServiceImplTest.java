@@ -1,24 +1,35 @@
 package com.armando.shop_api.service.impl;
 
+import com.armando.shop_api.analytics.SalesDelta;
+import com.armando.shop_api.analytics.SalesRollupStore;
 import com.armando.shop_api.dto.OrderCreateRequest;
 import com.armando.shop_api.dto.OrderItemCreateRequest;
+import com.armando.shop_api.dto.OrderLineRow;
 import com.armando.shop_api.dto.OrderResponse;
+import com.armando.shop_api.entity.OrderView;
 import com.armando.shop_api.entity.Product;
 import com.armando.shop_api.entity.User;
 import com.armando.shop_api.exception.BadRequestException;
 import com.armando.shop_api.exception.ForbiddenException;
 import com.armando.shop_api.exception.NotFoundException;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.orderview.OrderViewStore;
+import com.armando.shop_api.repository.OrderItemRepository;
 import com.armando.shop_api.repository.OrderRepository;
+import com.armando.shop_api.repository.OrderViewRepository;
 import com.armando.shop_api.repository.ProductRepository;
 import com.armando.shop_api.repository.UserRepository;
+import com.armando.shop_api.service.InventoryService;
+import com.armando.shop_api.service.UserOrderSummaryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,12 +42,30 @@ class OrderServiceImplTest {
     @Mock
     OrderRepository orderRepository;
 
+    @Mock
+    OrderItemRepository orderItemRepository;
+
     @Mock
     UserRepository userRepository;
 
     @Mock
     ProductRepository productRepository;
 
+    @Mock
+    InventoryService inventoryService;
+
+    @Mock
+    UserOrderSummaryService summaryService;
+
+    @Mock
+    SalesRollupStore salesRollups;
+
+    @Mock
+    OrderViewRepository orderViewRepository;
+
+    @Mock
+    OrderViewStore orderViews;
+
     @InjectMocks
     OrderServiceImpl orderService;
 
@@ -53,7 +82,7 @@ class OrderServiceImplTest {
         laptop = new Product();
         laptop.setId(3L);
         laptop.setName("Laptop");
-        laptop.setPrice(new BigDecimal("2500.00"));
+        laptop.setPrice(Money.valueOf("2500.00"));
         laptop.setStock(10);
     }
 
@@ -61,12 +90,14 @@ class OrderServiceImplTest {
     void create_ok_calculatesTotal_and_decrementsStock() {
         // arrange
         when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
-        when(productRepository.findById(3L)).thenReturn(Optional.of(laptop));
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop));
+        when(inventoryService.reserve(3L, 2)).thenReturn(true);
 
         // al guardar orden, simula que ya tiene ID
         when(orderRepository.save(any())).thenAnswer(invocation -> {
             var order = invocation.getArgument(0, com.armando.shop_api.entity.Order.class);
             order.setId(99L);
+            order.setCreatedAt(Instant.now()); // lo pone la auditoría JPA al persistir
             return order;
         });
 
@@ -78,15 +109,18 @@ class OrderServiceImplTest {
 
         // assert (OrderResponse es record => id(), total(), items())
         assertEquals(99L, response.id());
-        assertEquals(new BigDecimal("5000.00"), response.total());
+        assertEquals(Money.valueOf("5000.00"), response.total());
         assertEquals(1, response.items().size());
         assertEquals(3L, response.items().get(0).productId());
         assertEquals(2, response.items().get(0).quantity());
 
-        // stock descontado
-        assertEquals(8, laptop.getStock());
+        // stock descontado con UPDATE condicional (no se toca la entidad)
+        verify(inventoryService).reserve(3L, 2);
+        assertEquals(10, laptop.getStock());
 
         verify(orderRepository, times(1)).save(any());
+        // resumen de la cuenta: +1 orden, +5000 en la misma transacción
+        verify(summaryService).ordersAdded(eq(4L), eq(1), eq(Money.valueOf("5000.00")), any());
     }
 
     @Test
@@ -104,7 +138,7 @@ class OrderServiceImplTest {
     @Test
     void create_productNotFound_throwsNotFound() {
         when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
-        when(productRepository.findById(3L)).thenReturn(Optional.empty());
+        when(productRepository.findAllById(any())).thenReturn(List.of());
 
         OrderCreateRequest req = new OrderCreateRequest();
         req.setItems(List.of(item(3L, 1)));
@@ -116,11 +150,109 @@ class OrderServiceImplTest {
     @Test
     void create_qtyZero_throwsBadRequest() {
         when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
-        when(productRepository.findById(3L)).thenReturn(Optional.of(laptop));
 
         OrderCreateRequest req = new OrderCreateRequest();
         req.setItems(List.of(item(3L, 0)));
 
+        assertThrows(BadRequestException.class, () -> orderService.create(req, "pedro@mail.com"));
+        verify(productRepository, never()).findAllById(any());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void create_duplicateLinesOverflowingInt_throwsBadRequest_withoutTouchingStock() {
+        when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
+
+        // MAX_VALUE + 2 desbordaría a negativo y el UPDATE condicional aumentaría el stock
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item(3L, Integer.MAX_VALUE), item(3L, 2)));
+
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> orderService.create(req, "pedro@mail.com"));
+        assertEquals("Quantity too large", ex.getMessage());
+        verifyNoInteractions(inventoryService);
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void create_duplicateProducts_mergedIntoOneLine_loadedOnce() {
+        when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop));
+        when(inventoryService.reserve(3L, 3)).thenReturn(true);
+        when(orderRepository.save(any())).thenAnswer(invocation -> {
+            var order = invocation.getArgument(0, com.armando.shop_api.entity.Order.class);
+            order.setId(98L);
+            order.setCreatedAt(Instant.now());
+            return order;
+        });
+
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item(3L, 1), item(3L, 2)));
+
+        OrderResponse response = orderService.create(req, "pedro@mail.com");
+
+        assertEquals(1, response.items().size());
+        assertEquals(3, response.items().get(0).quantity());
+        assertEquals(Money.valueOf("7500.00"), response.total());
+        verify(inventoryService, times(1)).reserve(3L, 3);
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void create_notEnoughStock_onAnyLine_rejectsOrder() {
+        Product mouse = new Product();
+        mouse.setId(5L);
+        mouse.setName("Mouse");
+        mouse.setPrice(Money.valueOf("20.00"));
+        mouse.setStock(1);
+
+        when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop, mouse));
+        when(inventoryService.reserve(3L, 2)).thenReturn(true);
+        when(inventoryService.reserve(5L, 2)).thenReturn(false);
+
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item(3L, 2), item(5L, 2)));
+
+        // la excepción hace rollback de la reserva del laptop
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> orderService.create(req, "pedro@mail.com"));
+        assertEquals("Not enough stock for product: Mouse", ex.getMessage());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void create_hotSkuWithZeroDbStock_isServedByInventoryService() {
+        // el ledger retiró todo products.stock a memoria: la fila dice 0 pero reserve() tiene unidades
+        laptop.setStock(0);
+        when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop));
+        when(inventoryService.reserve(3L, 1)).thenReturn(true);
+        when(orderRepository.save(any())).thenAnswer(invocation -> {
+            var order = invocation.getArgument(0, com.armando.shop_api.entity.Order.class);
+            order.setId(100L);
+            order.setCreatedAt(Instant.now());
+            return order;
+        });
+
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item(3L, 1)));
+
+        assertEquals(100L, orderService.create(req, "pedro@mail.com").id());
+        verify(inventoryService).reserve(3L, 1);
+    }
+
+    @Test
+    void create_concurrentStockLoss_conditionalUpdateFails_throwsBadRequest() {
+        when(userRepository.findByEmail("pedro@mail.com")).thenReturn(Optional.of(user));
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop));
+        // el snapshot dice 10, pero otro pedido se llevó el stock antes del UPDATE
+        when(inventoryService.reserve(3L, 2)).thenReturn(false);
+
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item(3L, 2)));
+
         assertThrows(BadRequestException.class, () -> orderService.create(req, "pedro@mail.com"));
         verify(orderRepository, never()).save(any());
     }
@@ -138,13 +270,158 @@ class OrderServiceImplTest {
         anotherUser.setEmail("other@mail.com");
         existingOrder.setUser(anotherUser);
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.findDetailedById(1L)).thenReturn(Optional.of(existingOrder));
 
         OrderCreateRequest req = new OrderCreateRequest();
         req.setItems(List.of(item(3L, 1)));
 
         assertThrows(ForbiddenException.class, () -> orderService.update(1L, req, "pedro@mail.com"));
-        verify(orderRepository, never()).save(any());
+        verify(orderRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void update_appliesOnlyNetStockDelta_and_keepsUnchangedLines() {
+        var mouse = new Product();
+        mouse.setId(5L);
+        mouse.setName("Mouse");
+        mouse.setPrice(Money.valueOf("20.00"));
+        var keyboard = new Product();
+        keyboard.setId(7L);
+        keyboard.setName("Keyboard");
+        keyboard.setPrice(Money.valueOf("50.00"));
+
+        var order = new com.armando.shop_api.entity.Order();
+        order.setId(1L);
+        order.setUser(user);
+        // precio de la laptop al momento del pedido (distinto del actual)
+        var laptopLine = orderItem(order, laptop, 2, "2400.00");
+        var mouseLine = orderItem(order, mouse, 1, "20.00");
+        order.getItems().add(laptopLine);
+        order.getItems().add(mouseLine);
+        order.recalcTotal(); // 4820.00
+        order.setCreatedAt(Instant.parse("2026-03-01T10:15:30Z"));
+
+        when(orderRepository.findDetailedById(1L)).thenReturn(Optional.of(order));
+        when(productRepository.findAllById(any())).thenReturn(List.of(keyboard));
+        when(inventoryService.reserve(anyLong(), anyInt())).thenReturn(true);
+        when(orderRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item(3L, 3), item(7L, 1))); // laptop 2 -> 3, mouse fuera, keyboard nuevo
+
+        OrderResponse response = orderService.update(1L, req, "pedro@mail.com");
+
+        verify(inventoryService).reserve(3L, 1);
+        verify(inventoryService).release(5L, 1);
+        verify(inventoryService).reserve(7L, 1);
+        verifyNoMoreInteractions(inventoryService);
+        verify(productRepository).findAllById(java.util.Set.of(7L));
+
+        assertEquals(2, response.items().size());
+        assertSame(laptopLine, order.getItems().get(0));
+        assertEquals(Money.valueOf("7200.00"), laptopLine.getSubtotal());
+        assertEquals(Money.valueOf("7250.00"), response.total());
+        verify(summaryService).totalChanged(4L, Money.valueOf("2430.00"));
+
+        // ventas de la hora de creación: solo el neto por producto, sin contar otra orden
+        var sales = ArgumentCaptor.forClass(SalesDelta.class);
+        verify(salesRollups).apply(eq(1L), sales.capture());
+        assertEquals(Instant.parse("2026-03-01T10:00:00Z"), sales.getValue().hour());
+        assertEquals(0, sales.getValue().orders());
+        assertEquals(1, sales.getValue().units());
+        assertEquals(Money.valueOf("2430.00").cents(), sales.getValue().cents());
+        assertArrayEquals(new long[]{1, 240000}, sales.getValue().products().get(3L));
+        assertArrayEquals(new long[]{-1, -2000}, sales.getValue().products().get(5L));
+    }
+
+    @Test
+    void delete_cancelsOrder_andRestoresStockWithOneSetBasedUpdate() {
+        var order = new com.armando.shop_api.entity.Order();
+        order.setId(1L);
+        order.setUser(user);
+        order.setTotal(Money.valueOf("5020.00"));
+        order.setCreatedAt(Instant.parse("2026-03-01T10:15:30Z"));
+
+        when(orderRepository.findActiveById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.cancel(eq(1L), eq("pedro@mail.com"), any())).thenReturn(1);
+        when(orderItemRepository.findLines(1L)).thenReturn(List.of(
+                new OrderLineRow(3L, 2, Money.valueOf("5000.00")),
+                new OrderLineRow(5L, 1, Money.valueOf("20.00"))));
+
+        orderService.delete(1L, "pedro@mail.com");
+
+        // sin borrado en cascada ni devoluciones por producto
+        verify(inventoryService).releaseOrder(1L, List.of(3L, 5L));
+        verify(inventoryService, never()).release(anyLong(), anyInt());
+        verify(orderRepository, never()).delete(any());
+        verify(summaryService).orderRemoved(4L, 1L, Money.valueOf("5020.00"), order.getCreatedAt());
+        verify(orderViews).delete(1L);
+
+        var sales = ArgumentCaptor.forClass(SalesDelta.class);
+        verify(salesRollups).apply(eq(1L), sales.capture());
+        assertEquals(-1, sales.getValue().orders());
+        assertEquals(-3, sales.getValue().units());
+        assertEquals(-502000, sales.getValue().cents());
+    }
+
+    @Test
+    void delete_alreadyCancelledConcurrently_throwsNotFound_withoutRestoringStock() {
+        var order = new com.armando.shop_api.entity.Order();
+        order.setId(1L);
+        order.setUser(user);
+        when(orderRepository.findActiveById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.cancel(eq(1L), eq("pedro@mail.com"), any())).thenReturn(0);
+
+        assertThrows(NotFoundException.class, () -> orderService.delete(1L, "pedro@mail.com"));
+        verifyNoInteractions(inventoryService, salesRollups, summaryService);
+    }
+
+    @Test
+    void listMine_fetchesOneExtraRow_toComputeNextCursor() {
+        when(orderViews.backfilled()).thenReturn(true);
+        when(orderViewRepository.findPage(eq("pedro@mail.com"), eq(Long.MAX_VALUE), any()))
+                .thenReturn(List.of(view(30L), view(20L), view(10L)));
+        when(orderViews.read(any())).thenAnswer(inv -> response(inv.getArgument(0, OrderView.class).getOrderId()));
+
+        var page = orderService.listMine("pedro@mail.com", null, 2);
+
+        assertEquals(List.of(30L, 20L), page.items().stream().map(OrderResponse::id).toList());
+        assertEquals(20L, page.nextCursor());
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void listMine_whileTheViewBackfillIsIncomplete_readsOrders_soNoOrderIsMissing() {
+        // un tramo del alta inicial falló: la orden 20 no tiene vista
+        when(orderViews.backfilled()).thenReturn(false);
+        when(orderRepository.findPageIds(eq("pedro@mail.com"), eq(Long.MAX_VALUE), any()))
+                .thenReturn(List.of(30L, 20L, 10L));
+        when(orderRepository.findDetailedByIdIn(List.of(30L, 20L))).thenReturn(List.of(order(30L), order(20L)));
+
+        var page = orderService.listMine("pedro@mail.com", null, 2);
+
+        assertEquals(List.of(30L, 20L), page.items().stream().map(OrderResponse::id).toList());
+        assertEquals(20L, page.nextCursor());
+        verifyNoInteractions(orderViewRepository);
+
+        orderService.listMineSummary("pedro@mail.com", null, 2);
+        verify(orderRepository).findSummaryPage(eq("pedro@mail.com"), eq(Long.MAX_VALUE), any());
+        verifyNoInteractions(orderViewRepository);
+    }
+
+    @Test
+    void getMine_readsOrderView_withoutLoadingEntities() {
+        when(orderViewRepository.findByOrderIdAndUserEmail(30L, "pedro@mail.com")).thenReturn(Optional.of(view(30L)));
+        when(orderViews.read(any())).thenReturn(response(30L));
+
+        assertEquals(30L, orderService.getMine(30L, "pedro@mail.com").id());
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void listMine_limitOutOfRange_throwsBadRequest() {
+        assertThrows(BadRequestException.class, () -> orderService.listMine("pedro@mail.com", null, 0));
+        verifyNoInteractions(orderRepository);
     }
 
     private static OrderItemCreateRequest item(Long productId, int quantity) {
@@ -153,4 +430,34 @@ class OrderServiceImplTest {
         it.setQuantity(quantity);
         return it;
     }
+
+    private static com.armando.shop_api.entity.OrderItem orderItem(
+            com.armando.shop_api.entity.Order order, Product product, int qty, String unitPrice) {
+        var price = Money.valueOf(unitPrice);
+        return com.armando.shop_api.entity.OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(qty)
+                .unitPrice(price)
+                .subtotal(price.times(qty))
+                .build();
+    }
+
+    private com.armando.shop_api.entity.Order order(Long id) {
+        var order = new com.armando.shop_api.entity.Order();
+        order.setId(id);
+        order.setUser(user);
+        order.setTotal(Money.ZERO);
+        return order;
+    }
+
+    private static OrderView view(Long id) {
+        var v = new OrderView();
+        v.setOrderId(id);
+        return v;
+    }
+
+    private OrderResponse response(Long id) {
+        return new OrderResponse(id, user.getId(), user.getEmail(), Money.ZERO, List.of(), null, null, null, null);
+    }
 }
@@ -0,0 +1,182 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.dto.ImportRowError;
+import com.armando.shop_api.dto.ProductImportResponse;
+import com.armando.shop_api.dto.ProductResponse;
+import com.armando.shop_api.inventory.InventoryLedger;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.search.ProductSearchIndex;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// H2 en memoria sin modo MySQL: el SQL de la importación es estándar
+class ProductImportServiceImplTest {
+
+    private DriverManagerDataSource ds;
+    private JdbcTemplate jdbc;
+    private ProductCache cache;
+    private InventoryLedger ledger;
+    private ProductImportServiceImpl importer;
+
+    @BeforeEach
+    void setUp() {
+        ds = new DriverManagerDataSource("jdbc:h2:mem:import;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("""
+                CREATE TABLE products (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    sku VARCHAR(64),
+                    name VARCHAR(255) NOT NULL,
+                    price DECIMAL(12, 2) NOT NULL,
+                    stock INT NOT NULL,
+                    version BIGINT DEFAULT 0 NOT NULL,
+                    CONSTRAINT uk_products_sku UNIQUE (sku))
+                """);
+        jdbc.update("INSERT INTO products (name, price, stock) VALUES ('Laptop', 2500.00, 5)");
+
+        cache = new ProductCache(100, 100, Duration.ofMinutes(1));
+        ledger = mock(InventoryLedger.class);
+        when(ledger.databaseStockFor(anyLong(), anyInt())).thenAnswer(inv -> inv.getArgument(1));
+
+        importer = new ProductImportServiceImpl(jdbc, new TransactionTemplate(new DataSourceTransactionManager(ds)),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                Jackson2ObjectMapperBuilder.json().build(),
+                cache, mock(ProductSearchIndex.class), ledger, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void csv_badRowsAreReportedByLine_andTheRestIsImported() {
+        ProductImportResponse res = importer.importCsv(body("""
+                id,sku,name,price,stock
+                ,KB-1,Teclado,35.90,100
+                abc,KB-2,Raton,10.00,1
+                ,KB-3,Monitor,-5,1
+                ,,Sin clave,1.00,1
+                0,KB-4,Cero,1.00,1
+                99,KB-5,No existe,1.00,1
+                1,,Laptop Pro,2400.00,7
+                """));
+
+        assertEquals(7, res.processed());
+        assertEquals(2, res.imported());
+        assertEquals(5, res.failed());
+        assertEquals(List.of(
+                new ImportRowError(3, "id must be an integer"),
+                new ImportRowError(4, "price must be > 0"),
+                new ImportRowError(5, "id or sku is required"),
+                new ImportRowError(6, "id must be a positive integer"),
+                new ImportRowError(7, "product not found: id 99")), res.errors());
+
+        assertEquals(2, count());
+        assertEquals(Map.of("NAME", "Laptop Pro", "STOCK", 7, "VERSION", 1L),
+                jdbc.queryForMap("SELECT name, stock, version FROM products WHERE id = 1"));
+    }
+
+    @Test
+    void csv_reimport_updatesBySku_insteadOfDuplicating() {
+        String csv = """
+                sku,name,price,stock
+                KB-1,Teclado,35.90,100
+                MS-1,Raton,12.50,40
+                KB-1,Teclado ES,36.90,90
+                """;
+
+        ProductImportResponse first = importer.importCsv(body(csv));
+        ProductImportResponse second = importer.importCsv(body(csv));
+
+        // en la primera pasada las dos filas KB-1 van en el mismo lote: la segunda actualiza a la primera
+        assertEquals(0, first.failed());
+        assertEquals(0, second.failed());
+        assertEquals(3, second.imported());
+        assertEquals(3, count());
+        assertEquals(Map.of("NAME", "Teclado ES", "STOCK", 90),
+                jdbc.queryForMap("SELECT name, stock FROM products WHERE sku = 'KB-1'"));
+    }
+
+    @Test
+    void ndjson_idMustBeAPositiveInteger_neverDefaultsToZero() {
+        ProductImportResponse res = importer.importNdjson(body("""
+                {"id":"abc","name":"Texto","price":1.00,"stock":1}
+                {"id":1.5,"name":"Decimal","price":1.00,"stock":1}
+                {"id":true,"name":"Booleano","price":1.00,"stock":1}
+                {"id":-3,"name":"Negativo","price":1.00,"stock":1}
+                {"name":"Sin clave","price":1.00,"stock":1}
+                not json
+                {"id":"1","name":"Laptop X","price":2400.00,"stock":3}
+                """));
+
+        assertEquals(1, res.imported());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), res.errors().stream().map(ImportRowError::line).toList());
+        assertEquals("id must be an integer", res.errors().get(0).error());
+        assertEquals("id must be a positive integer", res.errors().get(3).error());
+        assertTrue(res.errors().get(5).error().startsWith("invalid JSON"));
+
+        assertEquals(1, count());
+        assertEquals("Laptop X", jdbc.queryForObject("SELECT name FROM products WHERE id = 1", String.class));
+    }
+
+    @Test
+    void ndjson_reimport_byIdAndBySku_isIdempotent() {
+        String ndjson = """
+                {"id":1,"sku":"LP-1","name":"Laptop","price":2500.00,"stock":5}
+                {"sku":"KB-1","name":"Teclado","price":35.90,"stock":100}
+                """;
+
+        importer.importNdjson(body(ndjson));
+        ProductImportResponse again = importer.importNdjson(body(ndjson));
+
+        assertEquals(2, again.imported());
+        assertEquals(2, count());
+        // la fila por id también fija el sku: en adelante la clave natural la encuentra
+        assertEquals(1L, jdbc.queryForObject("SELECT id FROM products WHERE sku = 'LP-1'", Long.class));
+    }
+
+    @Test
+    void update_goesThroughTheHotLedger_andEvictsTheCachedProduct() {
+        // producto caliente con 4 unidades en el ledger: para sumar 10, la BD guarda 6
+        when(ledger.databaseStockFor(1L, 10)).thenReturn(6);
+        cache.putItem(new ProductResponse(1L, null, "Laptop", Money.valueOf("2500.00"), 5, 0L));
+
+        importer.importCsv(body("""
+                id,name,price,stock
+                1,Laptop,2500.00,10
+                """));
+
+        verify(ledger).databaseStockFor(eq(1L), eq(10));
+        assertEquals(6, jdbc.queryForObject("SELECT stock FROM products WHERE id = 1", Integer.class));
+        assertNull(cache.getItem(1L));
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM products", Integer.class);
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
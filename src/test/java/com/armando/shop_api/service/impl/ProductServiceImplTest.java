@@ -0,0 +1,210 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.cache.ProductCache;
+import com.armando.shop_api.dto.CursorPage;
+import com.armando.shop_api.dto.ProductQuery;
+import com.armando.shop_api.dto.ProductRequest;
+import com.armando.shop_api.dto.ProductResponse;
+import com.armando.shop_api.entity.Product;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.inventory.InventoryLedger;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.repository.ProductRepository;
+import com.armando.shop_api.search.ProductSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductServiceImplTest {
+
+    private ProductRepository repo;
+    private ProductCache cache;
+    private InventoryLedger ledger;
+    private ProductServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(ProductRepository.class);
+        cache = new ProductCache(100, 100, Duration.ofMinutes(1));
+        ledger = mock(InventoryLedger.class);
+        when(ledger.databaseStockFor(anyLong(), anyInt())).thenAnswer(inv -> inv.getArgument(1));
+        service = new ProductServiceImpl(repo, cache, mock(ProductSearchIndex.class), ledger, new ObjectMapper());
+    }
+
+    @Test
+    void list_fetchesOneExtraRow_toKnowThereIsANextPage() {
+        when(repo.findPage(eq(0L), isNull(), isNull(), eq(false), eq(Limit.of(3)))).thenReturn(products(1, 2, 3));
+
+        CursorPage<ProductResponse> page = service.list(query(null, 2));
+
+        assertEquals(List.of(1L, 2L), ids(page));
+        // el cursor es el último id devuelto, no el de la fila de más
+        assertEquals(2L, page.nextCursor());
+    }
+
+    @Test
+    void list_lastPage_hasNoCursor_evenWhenExactlyFull() {
+        when(repo.findPage(eq(2L), isNull(), isNull(), eq(false), eq(Limit.of(3)))).thenReturn(products(3, 4));
+
+        CursorPage<ProductResponse> page = service.list(query(2L, 2));
+
+        assertEquals(List.of(3L, 4L), ids(page));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void list_emptyPage_hasNoItemsAndNoCursor() {
+        when(repo.findPage(anyLong(), any(), any(), anyBoolean(), any())).thenReturn(List.of());
+
+        CursorPage<ProductResponse> page = service.list(query(99L, 10));
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void list_passesPriceAndStockFiltersToTheKeysetQuery() {
+        when(repo.findPage(anyLong(), any(), any(), anyBoolean(), any())).thenReturn(products(5));
+
+        service.list(new ProductQuery(4L, 10, Money.valueOf("10.00"), Money.valueOf("50.00"), true));
+
+        verify(repo).findPage(4L, Money.valueOf("10.00"), Money.valueOf("50.00"), true, Limit.of(11));
+    }
+
+    @Test
+    void list_rejectsBadLimitsAndInvertedPriceRange() {
+        assertThrows(BadRequestException.class, () -> service.list(query(null, 0)));
+        assertThrows(BadRequestException.class, () -> service.list(query(null, ProductServiceImpl.MAX_PAGE_SIZE + 1)));
+        assertThrows(BadRequestException.class, () -> service.list(
+                new ProductQuery(null, 10, Money.valueOf("50.00"), Money.valueOf("10.00"), false)));
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void list_isServedFromThePageCache_untilAProductInItsRangeChanges() {
+        when(repo.findPage(anyLong(), any(), any(), anyBoolean(), any())).thenReturn(products(1, 2, 3));
+
+        CursorPage<ProductResponse> first = service.list(query(null, 2));
+        assertSame(first, service.list(query(null, 2)));
+        // otra query (otro filtro) es otra entrada
+        service.list(new ProductQuery(null, 2, null, null, true));
+        verify(repo, times(2)).findPage(anyLong(), any(), any(), anyBoolean(), any());
+
+        cache.evict(2L);
+        assertNotSame(first, service.list(query(null, 2)));
+        verify(repo, times(3)).findPage(anyLong(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void update_onAHotSku_storesOnlyWhatTheLedgerDoesNotHold() {
+        Product p = products(5).get(0);
+        when(repo.findById(5L)).thenReturn(Optional.of(p));
+        when(repo.save(p)).thenReturn(p);
+        // 10 unidades en el contador del ledger: stock total 25 → 15 en products.stock
+        when(ledger.databaseStockFor(5L, 25)).thenReturn(15);
+
+        ProductRequest req = new ProductRequest();
+        req.setName("Laptop");
+        req.setPrice(new BigDecimal("100.00"));
+        req.setStock(25);
+        ProductResponse res = service.update(5L, req);
+
+        assertEquals(15, p.getStock());
+        assertEquals(15, res.getStock());
+    }
+
+    @Test
+    void exportNdjson_writesOneObjectPerLine_withoutInternalFields() throws Exception {
+        when(repo.streamAllForExport()).thenReturn(Stream.of(
+                new ProductResponse(1L, "KB-1", "Teclado \"ES\"", Money.valueOf("35.90"), 100, 3L),
+                new ProductResponse(2L, null, "Ratón", Money.valueOf("12.50"), 0, 0L)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportNdjson(out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        ObjectMapper json = new ObjectMapper();
+        var first = json.readTree(lines.get(0));
+        assertEquals(1, first.get("id").asInt());
+        assertEquals("Teclado \"ES\"", first.get("name").asText());
+        // importe exacto con dos decimales, tal como lo escribe Money
+        assertTrue(lines.get(0).contains("\"price\":35.90"), lines.get(0));
+        assertFalse(first.has("version"));
+        assertEquals("Ratón", json.readTree(lines.get(1)).get("name").asText());
+    }
+
+    @Test
+    void exportNdjson_emptyCatalog_writesNothing() throws Exception {
+        when(repo.streamAllForExport()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportNdjson(out);
+
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void exportNdjson_streams_flushingTheFirstRowAndThenEveryBlock_andClosesTheCursor() throws Exception {
+        int rows = ProductServiceImpl.EXPORT_FLUSH_EVERY * 2 + 1;
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repo.streamAllForExport()).thenReturn(LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> new ProductResponse(id, null, "P" + id, Money.valueOf("1.00"), 1, 0L))
+                .onClose(() -> closed.set(true)));
+
+        // cuántas líneas había en el cliente en cada flush
+        List<Long> flushedAt = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushedAt.add(toString(StandardCharsets.UTF_8).chars().filter(c -> c == '\n').count());
+            }
+        };
+
+        service.exportNdjson(out);
+
+        // primer byte en cuanto hay una fila; después cada EXPORT_FLUSH_EVERY filas, nunca todo al final
+        assertEquals(0L, flushedAt.get(0));
+        assertTrue(flushedAt.contains((long) ProductServiceImpl.EXPORT_FLUSH_EVERY - 1));
+        assertTrue(flushedAt.contains((long) ProductServiceImpl.EXPORT_FLUSH_EVERY * 2 - 1));
+        assertEquals(rows, out.toString(StandardCharsets.UTF_8).lines().count());
+        assertTrue(closed.get());
+    }
+
+    private static ProductQuery query(Long after, int limit) {
+        return new ProductQuery(after, limit, null, null, false);
+    }
+
+    private static List<Long> ids(CursorPage<ProductResponse> page) {
+        return page.items().stream().map(ProductResponse::getId).toList();
+    }
+
+    private static List<Product> products(long... ids) {
+        return LongStream.of(ids).mapToObj(id -> {
+            Product p = new Product();
+            p.setId(id);
+            p.setName("Producto " + id);
+            p.setPrice(Money.valueOf("10.00"));
+            p.setStock(1);
+            return p;
+        }).toList();
+    }
+}
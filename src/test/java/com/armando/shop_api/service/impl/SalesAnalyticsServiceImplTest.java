@@ -0,0 +1,102 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.analytics.SalesRollupStore;
+import com.armando.shop_api.analytics.SalesRollupStore.HourRow;
+import com.armando.shop_api.exception.BadRequestException;
+import com.armando.shop_api.money.Money;
+import com.armando.shop_api.repository.ArchivedOrderRepository;
+import com.armando.shop_api.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class SalesAnalyticsServiceImplTest {
+
+    private SalesRollupStore rollups;
+    private OrderRepository orderRepository;
+    private ArchivedOrderRepository archivedOrderRepository;
+    private SalesAnalyticsServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        rollups = mock(SalesRollupStore.class);
+        orderRepository = mock(OrderRepository.class);
+        archivedOrderRepository = mock(ArchivedOrderRepository.class);
+        service = new SalesAnalyticsServiceImpl(rollups, orderRepository, archivedOrderRepository,
+                mock(PlatformTransactionManager.class), 1000);
+    }
+
+    @Test
+    void revenueByDay_sumsHourlyRows_andRoundsAverageBasket() {
+        Instant from = Instant.parse("2026-03-01T00:00:00Z");
+        Instant to = Instant.parse("2026-03-03T00:00:00Z");
+        when(rollups.hours(from, to)).thenReturn(List.of(
+                new HourRow(Instant.parse("2026-03-01T09:00:00Z"), 2, 3, Money.valueOf("10.00")),
+                new HourRow(Instant.parse("2026-03-01T17:00:00Z"), 1, 1, Money.valueOf("0.01")),
+                new HourRow(Instant.parse("2026-03-02T08:00:00Z"), 4, 8, Money.valueOf("100.00"))));
+
+        var days = service.revenue(from, to, "day");
+
+        assertEquals(2, days.size());
+        assertEquals(Instant.parse("2026-03-01T00:00:00Z"), days.get(0).bucketStart());
+        assertEquals(3, days.get(0).orders());
+        assertEquals(Money.valueOf("10.01"), days.get(0).revenue());
+        assertEquals(Money.valueOf("3.34"), days.get(0).averageBasket()); // 10.01 / 3, redondeo half-up
+        assertEquals(Money.valueOf("25.00"), days.get(1).averageBasket());
+    }
+
+    @Test
+    void hourlyRangeOverLimit_orUnknownGranularity_throwsBadRequest() {
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        Instant to = Instant.parse("2026-03-01T00:00:00Z");
+
+        assertThrows(BadRequestException.class, () -> service.revenue(from, to, "hour"));
+        assertThrows(BadRequestException.class, () -> service.revenue(from, to, "week"));
+        verify(rollups, never()).hours(any(), any());
+    }
+
+    @Test
+    void rebuild_fencesUpToTheMaxIdOfBothTables_chunksInOrder_thenLiftsTheFence() {
+        when(orderRepository.findMaxId()).thenReturn(2500L);
+        when(archivedOrderRepository.findMaxId()).thenReturn(1200L);
+        // el máximo se calcula dentro de beginRebuild, con la valla ya bloqueada
+        when(rollups.beginRebuild(any())).thenAnswer(inv -> inv.getArgument(0, LongSupplier.class).getAsLong());
+        when(rollups.rebuildChunk(anyLong(), anyLong())).thenReturn(10);
+
+        var res = service.rebuild();
+
+        assertEquals(30, res.orders());
+        assertEquals(3, res.chunks());
+        InOrder inOrder = inOrder(rollups);
+        inOrder.verify(rollups).beginRebuild(any());
+        inOrder.verify(rollups).rebuildChunk(0, 1000);
+        inOrder.verify(rollups).rebuildChunk(1000, 2000);
+        inOrder.verify(rollups).rebuildChunk(2000, 2500);
+        inOrder.verify(rollups).endRebuild();
+    }
+
+    @Test
+    void rebuild_failingChunk_leavesTheFenceUp_andCanBeRelaunched() {
+        when(rollups.beginRebuild(any())).thenReturn(2500L);
+        when(rollups.rebuildChunk(1000, 2000)).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> service.rebuild());
+        // sin endRebuild: las órdenes de los tramos pendientes siguen sin sumar hasta relanzarla
+        verify(rollups, never()).endRebuild();
+
+        reset(rollups);
+        when(rollups.beginRebuild(any())).thenReturn(0L);
+        assertEquals(0, service.rebuild().chunks());
+        verify(rollups).endRebuild();
+    }
+}
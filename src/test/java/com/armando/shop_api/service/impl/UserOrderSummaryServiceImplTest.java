@@ -0,0 +1,54 @@
+package com.armando.shop_api.service.impl;
+
+import com.armando.shop_api.repository.UserOrderSummaryRepository;
+import com.armando.shop_api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserOrderSummaryServiceImplTest {
+
+    private UserOrderSummaryRepository summaryRepository;
+    private UserRepository userRepository;
+    private UserOrderSummaryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        summaryRepository = mock(UserOrderSummaryRepository.class);
+        userRepository = mock(UserRepository.class);
+        service = new UserOrderSummaryServiceImpl(summaryRepository, userRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void backfill_failingChunk_isLogged_andTheOtherChunksStillRun() {
+        when(summaryRepository.countUsersWithoutSummary()).thenReturn(3L);
+        when(userRepository.findMaxId()).thenReturn(2500L);
+        when(summaryRepository.backfillRange(anyLong(), anyLong(), any())).thenReturn(1);
+        when(summaryRepository.backfillRange(eq(1000L), eq(2000L), any()))
+                .thenThrow(new DuplicateKeyException("uk user_order_summaries"));
+
+        assertDoesNotThrow(service::backfill);
+
+        verify(summaryRepository).backfillRange(eq(0L), eq(1000L), any());
+        verify(summaryRepository).backfillRange(eq(2000L), eq(3000L), any());
+    }
+
+    @Test
+    void backfill_nothingToDo_orDatabaseUnavailable_doesNotFailStartup() {
+        when(summaryRepository.countUsersWithoutSummary()).thenReturn(0L);
+        service.backfill();
+
+        when(summaryRepository.countUsersWithoutSummary()).thenThrow(new QueryTimeoutException("connection refused"));
+        assertDoesNotThrow(service::backfill);
+
+        verify(summaryRepository, never()).backfillRange(anyLong(), anyLong(), any());
+    }
+}